@@ -26,6 +26,7 @@ import android.database.sqlite.SQLiteOpenHelper
 import android.provider.BaseColumns
 import android.util.Log
 import cz.romario.opensudoku.R
+import cz.romario.opensudoku.game.CellCollection
 import cz.romario.opensudoku.game.SudokuGame
 
 /**
@@ -38,6 +39,8 @@ class DatabaseHelper internal constructor(private val mContext: Context) : SQLit
 
         createFolderTable(db)
 
+        createChangeTable(db)
+
         insertFolder(db, 1, mContext.getString(R.string.difficulty_easy))
         insertEasyGames(db)
         insertFolder(db, 2, mContext.getString(R.string.difficulty_medium))
@@ -50,7 +53,19 @@ class DatabaseHelper internal constructor(private val mContext: Context) : SQLit
 
     override fun onUpgrade(db: SQLiteDatabase, oldVersion: Int, newVersion: Int) {
         Log.i(TAG, "Upgrading database from version $oldVersion to $newVersion.")
+        if (oldVersion < 10) {
+            createChangeTable(db)
+        }
+        if (oldVersion < 11) {
+            db.execSQL("ALTER TABLE ${SudokuDatabase.SUDOKU_TABLE_NAME} ADD COLUMN ${SudokuColumns.DIFFICULTY} INTEGER;")
+        }
+        if (oldVersion < 12) {
+            db.execSQL("ALTER TABLE ${SudokuDatabase.SUDOKU_TABLE_NAME} ADD COLUMN ${SudokuColumns.SOLUTION} BLOB;")
+            db.execSQL("ALTER TABLE ${SudokuDatabase.SUDOKU_TABLE_NAME} ADD COLUMN ${SudokuColumns.SOLUTION_COUNT} INTEGER;")
+        }
         createIndexes(db)
+        // puzzles stored as text (before version 9) stay readable, they are converted to binary
+        // form later on background thread, see SudokuDatabase.migrateDataToBinary
     }
 
     private fun insertHardGames(db: SQLiteDatabase) {
@@ -164,8 +179,19 @@ class DatabaseHelper internal constructor(private val mContext: Context) : SQLit
                 + "${SudokuColumns.STATE} INTEGER,"
                 + "${SudokuColumns.TIME} INTEGER,"
                 + "${SudokuColumns.LAST_PLAYED} INTEGER,"
-                + "${SudokuColumns.DATA} Text,"
-                + "${SudokuColumns.PUZZLE_NOTE} Text"
+                + "${SudokuColumns.DATA} BLOB,"
+                + "${SudokuColumns.PUZZLE_NOTE} Text,"
+                + "${SudokuColumns.DIFFICULTY} INTEGER,"
+                + "${SudokuColumns.SOLUTION} BLOB,"
+                + "${SudokuColumns.SOLUTION_COUNT} INTEGER"
+                + ");")
+    }
+
+    private fun createChangeTable(db: SQLiteDatabase) {
+        db.execSQL("CREATE TABLE ${SudokuDatabase.CHANGE_TABLE_NAME} ("
+                + "${BaseColumns._ID} INTEGER PRIMARY KEY,"
+                + "${SudokuChangeColumns.SUDOKU_ID} INTEGER,"
+                + "${SudokuChangeColumns.DATA} BLOB"
                 + ");")
     }
 
@@ -174,16 +200,24 @@ class DatabaseHelper internal constructor(private val mContext: Context) : SQLit
     }
 
     private fun insertSudoku(db: SQLiteDatabase, folderID: Long, sudokuID: Long, data: String) {
-        db.execSQL("INSERT INTO ${SudokuDatabase.SUDOKU_TABLE_NAME} VALUES ($sudokuID, $folderID, 0, ${SudokuGame.GAME_STATE_NOT_STARTED}, 0, null, '$data', null);")
+        // default puzzles are stored in binary form right away, parsing them is cheap
+        db.execSQL("INSERT INTO ${SudokuDatabase.SUDOKU_TABLE_NAME} VALUES ($sudokuID, $folderID, 0, ${SudokuGame.GAME_STATE_NOT_STARTED}, 0, null, ?, null, null, null, null);",
+                arrayOf<Any>(CellCollection.deserialize(data).serializeBinary()))
     }
 
     private fun createIndexes(db: SQLiteDatabase) {
-        db.execSQL("CREATE INDEX ${SudokuDatabase.SUDOKU_TABLE_NAME}_idx1 ON ${SudokuDatabase.SUDOKU_TABLE_NAME} (${SudokuColumns.FOLDER_ID});")
+        db.execSQL("CREATE INDEX IF NOT EXISTS ${SudokuDatabase.SUDOKU_TABLE_NAME}_idx1 ON ${SudokuDatabase.SUDOKU_TABLE_NAME} (${SudokuColumns.FOLDER_ID});")
+        db.execSQL("CREATE INDEX IF NOT EXISTS ${SudokuDatabase.SUDOKU_TABLE_NAME}_idx2 ON ${SudokuDatabase.SUDOKU_TABLE_NAME} (${SudokuColumns.FOLDER_ID}, ${SudokuColumns.DIFFICULTY});")
+        createChangeIndexes(db)
+    }
+
+    private fun createChangeIndexes(db: SQLiteDatabase) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS ${SudokuDatabase.CHANGE_TABLE_NAME}_idx1 ON ${SudokuDatabase.CHANGE_TABLE_NAME} (${SudokuChangeColumns.SUDOKU_ID});")
     }
 
     companion object {
         private val TAG = "DatabaseHelper"
 
-        val DATABASE_VERSION = 8
+        val DATABASE_VERSION = 12
     }
 }
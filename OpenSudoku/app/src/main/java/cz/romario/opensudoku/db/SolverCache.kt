@@ -0,0 +1,46 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+
+package cz.romario.opensudoku.db
+
+import cz.romario.opensudoku.game.BitboardSolver
+import cz.romario.opensudoku.game.BoardGeometry
+import cz.romario.opensudoku.game.CancellableSolver
+import java.util.*
+
+/**
+ * Solvers reused for boards of each size. Not thread safe, like the solvers themselves.
+ *
+ * @param parallel Whether large boards may be solved on more threads, see
+ * [CancellableSolver.create]. Callers which already solve on a pool of threads pass false.
+ */
+internal class SolverCache(private val parallel: Boolean = true) {
+
+    private val solvers = HashMap<BoardGeometry, CancellableSolver>()
+
+    fun get(geometry: BoardGeometry): CancellableSolver {
+        var solver = solvers[geometry]
+        if (solver == null) {
+            solver = if (parallel) CancellableSolver.create(geometry) else BitboardSolver(geometry)
+            solvers[geometry] = solver
+        }
+        return solver
+    }
+}
@@ -0,0 +1,41 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+
+package cz.romario.opensudoku.db
+
+import android.provider.BaseColumns
+
+/**
+ * Columns of the log of cell changes made to puzzles since their data were last written
+ * as a whole, see [SudokuDatabase.updateSudoku].
+ *
+ * Givens are never logged: when editable flag of any cell changes, the whole board is written
+ * to [SudokuColumns.DATA] and the log is cleared. Queries which need only givens (rating,
+ * solving, finding equivalent puzzles) can therefore read data column without applying
+ * the log, only queries of whole boards (export) have to call [SudokuDatabase.compactChanges].
+ */
+abstract class SudokuChangeColumns : BaseColumns {
+    companion object {
+        @JvmField
+        val SUDOKU_ID = "sudoku_id"
+        @JvmField
+        val DATA = "data"
+    }
+}
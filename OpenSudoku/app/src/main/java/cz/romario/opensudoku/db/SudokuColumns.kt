@@ -38,5 +38,24 @@ abstract class SudokuColumns : BaseColumns {
         val DATA = "data"
         @JvmField
         val PUZZLE_NOTE = "puzzle_note"
+        /**
+         * Ordinal of [cz.romario.opensudoku.game.Difficulty], [SudokuDatabase.DIFFICULTY_BEYOND_TECHNIQUES]
+         * or null if puzzle has not been rated yet.
+         */
+        @JvmField
+        val DIFFICULTY = "difficulty"
+        /**
+         * Unique solution packed by [cz.romario.opensudoku.game.PuzzleSolution.pack], null if
+         * puzzle has no or multiple solutions.
+         */
+        @JvmField
+        val SOLUTION = "solution"
+        /**
+         * Number of solutions: 0, 1 or 2 for multiple solutions, see
+         * [cz.romario.opensudoku.game.PuzzleSolution.solutionCount]. Puzzle is flagged as invalid
+         * unless it is 1.
+         */
+        @JvmField
+        val SOLUTION_COUNT = "solution_count"
     }
 }
@@ -23,13 +23,18 @@ package cz.romario.opensudoku.db
 import android.content.ContentValues
 import android.content.Context
 import android.database.Cursor
+import android.database.DatabaseUtils
 import android.database.SQLException
 import android.database.sqlite.SQLiteDatabase
 import android.database.sqlite.SQLiteQueryBuilder
 import android.database.sqlite.SQLiteStatement
 import android.provider.BaseColumns
+import android.util.Log
+import cz.romario.opensudoku.game.BoardGeometry
 import cz.romario.opensudoku.game.CellCollection
 import cz.romario.opensudoku.game.FolderInfo
+import cz.romario.opensudoku.game.PuzzleCanonicalizer
+import cz.romario.opensudoku.game.PuzzleSolution
 import cz.romario.opensudoku.game.SudokuGame
 import cz.romario.opensudoku.gui.SudokuListFilter
 
@@ -53,6 +58,9 @@ import cz.romario.opensudoku.gui.SudokuListFilter
 class SudokuDatabase(context: Context) {
     private val mOpenHelper: DatabaseHelper
     private var mInsertSudokuStatement: SQLiteStatement? = null
+    private val mSolvers = SolverCache()
+    // reused by updateSudoku, boards of the same size have the same length in binary form
+    private var mDataBuffer: ByteArray? = null
 
     /**
      * Returns list of puzzle folders.
@@ -233,6 +241,8 @@ class SudokuDatabase(context: Context) {
      */
     fun deleteFolder(folderID: Long) {
         mOpenHelper.writableDatabase.apply {
+            delete(CHANGE_TABLE_NAME, SudokuChangeColumns.SUDOKU_ID + " in (select " + BaseColumns._ID
+                    + " from " + SUDOKU_TABLE_NAME + " where " + SudokuColumns.FOLDER_ID + "=" + folderID + ")", null)
             delete(SUDOKU_TABLE_NAME, SudokuColumns.FOLDER_ID + "=" + folderID, null)
             delete(FOLDER_TABLE_NAME, BaseColumns._ID + "=" + folderID, null)
         }
@@ -245,6 +255,8 @@ class SudokuDatabase(context: Context) {
      * @return
      */
     fun getSudokuList(folderID: Long, filter: SudokuListFilter?): Cursor {
+        // data column may lag behind logged changes of games which are being played, their
+        // boards are written as a whole when the game is left, see updateSudoku
         val qb = SQLiteQueryBuilder()
 
         qb.tables = SUDOKU_TABLE_NAME
@@ -260,10 +272,178 @@ class SudokuDatabase(context: Context) {
             if (!filter.showStatePlaying) {
                 qb.appendWhere(" and " + SudokuColumns.STATE + "!=" + SudokuGame.GAME_STATE_PLAYING)
             }
+            if (filter.difficulty != null) {
+                qb.appendWhere(" and " + SudokuColumns.DIFFICULTY + "=" + filter.difficulty.ordinal)
+            }
+        }
+
+        // unrated puzzles (null difficulty) come first when sorted by difficulty
+        val sortOrder = if (filter != null && filter.sortByDifficulty) SudokuColumns.DIFFICULTY + " ASC, created DESC" else "created DESC"
+        val db = mOpenHelper.readableDatabase
+        return qb.query(db, null, null, null, null, null, sortOrder)
+    }
+
+    /**
+     * Returns count of puzzles which have not been rated yet.
+     *
+     * @param folderID Id of folder, -1 for all folders.
+     */
+    fun getUnratedSudokuCount(folderID: Long): Long {
+        val db = mOpenHelper.readableDatabase
+        return DatabaseUtils.queryNumEntries(db, SUDOKU_TABLE_NAME, getUnratedSelection(folderID))
+    }
+
+    /**
+     * Returns id and data of puzzles which have not been rated yet, ordered by id.
+     *
+     * @param folderID Id of folder, -1 for all folders.
+     * @param afterID  Only puzzles with greater id are returned.
+     * @param limit    Maximal number of returned puzzles.
+     */
+    fun getUnratedSudokus(folderID: Long, afterID: Long, limit: Int): Cursor {
+        // givens are rated, they are always in data column, so changes need not to be compacted
+        val db = mOpenHelper.readableDatabase
+        return db.query(SUDOKU_TABLE_NAME, arrayOf(BaseColumns._ID, SudokuColumns.DATA),
+                getUnratedSelection(folderID) + " and " + BaseColumns._ID + ">" + afterID,
+                null, null, null, BaseColumns._ID, limit.toString())
+    }
+
+    private fun getUnratedSelection(folderID: Long): String {
+        var selection = SudokuColumns.DIFFICULTY + " is null"
+        if (folderID != -1L) {
+            selection += " and " + SudokuColumns.FOLDER_ID + "=" + folderID
         }
+        return selection
+    }
+
+    /**
+     * Stores difficulties of puzzles in single transaction.
+     *
+     * @param difficulties Values for [SudokuColumns.DIFFICULTY] column.
+     */
+    fun updateDifficulties(sudokuIDs: LongArray, difficulties: IntArray, count: Int) {
+        val db = mOpenHelper.writableDatabase
+        val update = db.compileStatement("update " + SUDOKU_TABLE_NAME + " set " + SudokuColumns.DIFFICULTY
+                + "=? where " + BaseColumns._ID + "=?")
+        db.beginTransaction()
+        try {
+            for (i in 0 until count) {
+                update.bindLong(1, difficulties[i].toLong())
+                update.bindLong(2, sudokuIDs[i])
+                update.executeUpdateDelete()
+            }
+            db.setTransactionSuccessful()
+        } finally {
+            db.endTransaction()
+            update.close()
+        }
+    }
+
+    /**
+     * Marks puzzle as not rated and its solution as not known, should be called when its givens
+     * are edited. Solution is found later by [computeMissingSolutions].
+     */
+    fun updateGivens(sudokuID: Long) {
+        val values = ContentValues()
+        values.putNull(SudokuColumns.SOLUTION)
+        values.putNull(SudokuColumns.SOLUTION_COUNT)
+        values.putNull(SudokuColumns.DIFFICULTY)
+        mOpenHelper.writableDatabase.update(SUDOKU_TABLE_NAME, values, BaseColumns._ID + "=" + sudokuID, null)
+    }
 
+    /**
+     * Returns id and data of puzzles whose solution is not known yet, ordered by id.
+     *
+     * @param afterID Only puzzles with greater id are returned.
+     * @param limit   Maximal number of returned puzzles.
+     */
+    fun getUnsolvedSudokus(afterID: Long, limit: Int): Cursor {
+        // givens are solved, they are always in data column, so changes need not to be compacted
         val db = mOpenHelper.readableDatabase
-        return qb.query(db, null, null, null, null, null, "created DESC")
+        return db.query(SUDOKU_TABLE_NAME, arrayOf(BaseColumns._ID, SudokuColumns.DATA),
+                SudokuColumns.SOLUTION_COUNT + " is null and " + BaseColumns._ID + ">" + afterID,
+                null, null, null, BaseColumns._ID, limit.toString())
+    }
+
+    /**
+     * Stores solutions of puzzles in single transaction. Puzzles without solution (their data
+     * could not be read) are left as they are.
+     */
+    fun updateSolutions(sudokuIDs: LongArray, solutions: Array<PuzzleSolution?>, count: Int) {
+        val db = mOpenHelper.writableDatabase
+        val update = db.compileStatement("update " + SUDOKU_TABLE_NAME + " set " + SudokuColumns.SOLUTION
+                + "=?, " + SudokuColumns.SOLUTION_COUNT + "=? where " + BaseColumns._ID + "=?")
+        db.beginTransaction()
+        try {
+            for (i in 0 until count) {
+                val solution = solutions[i] ?: continue
+                val packed = solution.pack()
+                if (packed == null) {
+                    update.bindNull(1)
+                } else {
+                    update.bindBlob(1, packed)
+                }
+                update.bindLong(2, solution.solutionCount.toLong())
+                update.bindLong(3, sudokuIDs[i])
+                update.executeUpdateDelete()
+            }
+            db.setTransactionSuccessful()
+        } finally {
+            db.endTransaction()
+            update.close()
+        }
+    }
+
+    /**
+     * Converts puzzle data stored as text (by versions before 9) to binary form
+     * ([CellCollection.DATA_VERSION_2]). Rows are processed in chunks ordered by id, each chunk
+     * in one transaction, so conversion which was interrupted continues where it stopped when it
+     * is run again. Rows which cannot be parsed are left as they are, text data are still
+     * readable by [getCells]. Call it on a background thread.
+     */
+    fun migrateDataToBinary() {
+        val db = mOpenHelper.writableDatabase
+        val update = db.compileStatement("update " + SUDOKU_TABLE_NAME + " set " + SudokuColumns.DATA
+                + "=? where " + BaseColumns._ID + "=?")
+        try {
+            var lastID = -1L
+            do {
+                var count = 0
+                db.beginTransaction()
+                try {
+                    db.query(SUDOKU_TABLE_NAME, arrayOf(BaseColumns._ID, SudokuColumns.DATA),
+                            "typeof(" + SudokuColumns.DATA + ")='text' and " + BaseColumns._ID + ">" + lastID,
+                            null, null, null, BaseColumns._ID, MIGRATION_CHUNK_SIZE.toString()).use { c ->
+                        while (c.moveToNext()) {
+                            lastID = c.getLong(0)
+                            count++
+                            val data = try {
+                                CellCollection.deserialize(c.getString(1)).serializeBinary()
+                            } catch (e: IllegalArgumentException) {
+                                Log.w(TAG, "Cannot convert data of sudoku $lastID.", e)
+                                continue
+                            }
+                            update.bindBlob(1, data)
+                            update.bindLong(2, lastID)
+                            update.executeUpdateDelete()
+                        }
+                    }
+                    db.setTransactionSuccessful()
+                } finally {
+                    db.endTransaction()
+                }
+            } while (count == MIGRATION_CHUNK_SIZE)
+        } finally {
+            update.close()
+        }
+    }
+
+    /**
+     * Solves puzzles whose solution is not known yet and stores their solutions, see
+     * [SudokuSolutionJob]. Large boards can take long to solve, so call it on a background thread.
+     */
+    fun computeMissingSolutions() {
+        SudokuSolutionJob(this).run()
     }
 
     /**
@@ -287,20 +467,29 @@ class SudokuDatabase(context: Context) {
             if (c!!.moveToFirst()) {
                 val id = c.getLong(c.getColumnIndex(BaseColumns._ID))
                 val created = c.getLong(c.getColumnIndex(SudokuColumns.CREATED))
-                val data = c.getString(c.getColumnIndex(SudokuColumns.DATA))
+                val cells = getCells(c, c.getColumnIndex(SudokuColumns.DATA))
+                if (cells != null) {
+                    applyChanges(db, sudokuID, cells)
+                    cells.clearDirtyCells()
+                }
                 val lastPlayed = c.getLong(c.getColumnIndex(SudokuColumns.LAST_PLAYED))
                 val state = c.getInt(c.getColumnIndex(SudokuColumns.STATE))
                 val time = c.getLong(c.getColumnIndex(SudokuColumns.TIME))
                 val note = c.getString(c.getColumnIndex(SudokuColumns.PUZZLE_NOTE))
+                val solutionIndex = c.getColumnIndex(SudokuColumns.SOLUTION)
+                val solution = if (cells == null || c.isNull(solutionIndex)) null
+                else PuzzleSolution.unpack(c.getBlob(solutionIndex), cells.geometry)
 
                 s = SudokuGame().apply {
                     this.id = id
                     this.created = created
-                    this.cells = CellCollection.deserialize(data)
+                    this.cells = cells
                     this.lastPlayed = lastPlayed
                     this.state = state
                     this.time = time
                     this.note = note
+                    this.persistedCellsHash = cells?.zobristHash
+                    this.solution = solution
                 }
             }
         }
@@ -310,7 +499,8 @@ class SudokuDatabase(context: Context) {
     }
 
     /**
-     * Inserts new puzzle into the database.
+     * Inserts new puzzle into the database. Its solution is not known until
+     * [computeMissingSolutions] is run.
      *
      * @param folderID Primary key of the folder in which puzzle should be saved.
      * @param sudoku
@@ -319,7 +509,7 @@ class SudokuDatabase(context: Context) {
     fun insertSudoku(folderID: Long, sudoku: SudokuGame): Long {
         val db = mOpenHelper.writableDatabase
         val values = ContentValues()
-        values.put(SudokuColumns.DATA, sudoku.cells!!.serialize())
+        values.put(SudokuColumns.DATA, sudoku.cells!!.serializeBinary())
         values.put(SudokuColumns.CREATED, sudoku.created)
         values.put(SudokuColumns.LAST_PLAYED, sudoku.lastPlayed)
         values.put(SudokuColumns.STATE, sudoku.state)
@@ -329,6 +519,8 @@ class SudokuDatabase(context: Context) {
 
         val rowId = db.insert(SUDOKU_TABLE_NAME, FolderColumns.NAME, values)
         if (rowId > 0) {
+            sudoku.persistedCellsHash = sudoku.cells!!.zobristHash
+            sudoku.cells!!.clearDirtyCells()
             return rowId
         }
 
@@ -337,34 +529,48 @@ class SudokuDatabase(context: Context) {
 
     @Throws(SudokuInvalidFormatException::class)
     fun importSudoku(folderID: Long, pars: SudokuImportParams): Long {
-        if (pars.data == null) {
-            throw SudokuInvalidFormatException(pars.data!!)
-        }
-
-        if (!CellCollection.isValid(pars.data!!, CellCollection.DATA_VERSION_PLAIN)) {
-            if (!CellCollection.isValid(pars.data!!, CellCollection.DATA_VERSION_1)) {
-                throw SudokuInvalidFormatException(pars.data!!)
-            }
-        }
+        return insertImported(folderID, prepareImport(pars, mSolvers))
+    }
 
+    /**
+     * Inserts puzzle prepared by [prepareImport], see [SudokuImportBatch].
+     */
+    internal fun insertImported(folderID: Long, sudoku: ImportedSudoku): Long {
         if (mInsertSudokuStatement == null) {
             val db = mOpenHelper.writableDatabase
             mInsertSudokuStatement = db.compileStatement(
-                    "insert into sudoku (folder_id, created, state, time, last_played, data, puzzle_note) values (?, ?, ?, ?, ?, ?, ?)"
+                    "insert into sudoku (folder_id, created, state, time, last_played, data, puzzle_note, solution, solution_count, difficulty) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)"
             )
         }
 
+        val pars = sudoku.pars
         mInsertSudokuStatement!!.bindLong(1, folderID)
         mInsertSudokuStatement!!.bindLong(2, pars.created)
         mInsertSudokuStatement!!.bindLong(3, pars.state)
         mInsertSudokuStatement!!.bindLong(4, pars.time)
         mInsertSudokuStatement!!.bindLong(5, pars.lastPlayed)
-        mInsertSudokuStatement!!.bindString(6, pars.data)
+        mInsertSudokuStatement!!.bindBlob(6, sudoku.data)
         if (pars.note == null) {
             mInsertSudokuStatement!!.bindNull(7)
         } else {
             mInsertSudokuStatement!!.bindString(7, pars.note)
         }
+        val solution = sudoku.solution.pack()
+        if (solution == null) {
+            mInsertSudokuStatement!!.bindNull(8)
+        } else {
+            mInsertSudokuStatement!!.bindBlob(8, solution)
+        }
+        mInsertSudokuStatement!!.bindLong(9, sudoku.solution.solutionCount.toLong())
+        val difficulty = pars.difficulty
+        if (difficulty == null) {
+            mInsertSudokuStatement!!.bindNull(10)
+        } else {
+            mInsertSudokuStatement!!.bindLong(10, difficulty.ordinal.toLong())
+        }
+        if (!sudoku.solution.isUnique) {
+            Log.w(TAG, "Imported sudoku has ${if (sudoku.solution.solutionCount == 0) "no" else "multiple"} solutions.")
+        }
 
         val rowId = mInsertSudokuStatement!!.executeInsert()
         if (rowId > 0) {
@@ -375,7 +581,8 @@ class SudokuDatabase(context: Context) {
     }
 
     /**
-     * Returns List of sudokus to export.
+     * Returns List of sudokus to export. Data column does not include logged changes, call
+     * [compactChanges] first.
      *
      * @param folderID Id of folder to export, -1 if all folders will be exported.
      * @return
@@ -391,6 +598,7 @@ class SudokuDatabase(context: Context) {
 
     /**
      * Returns one concrete sudoku to export. Folder context is not exported in this case.
+     * Data column does not include logged changes, call [compactChanges] first.
      *
      * @param sudokuID
      * @return
@@ -401,21 +609,151 @@ class SudokuDatabase(context: Context) {
         return db.rawQuery(query, arrayOf(sudokuID.toString()))
     }
 
+    /**
+     * Scans puzzles in all folders and groups them into classes of equivalent puzzles, see
+     * [PuzzleCanonicalizer]. Only 9x9 puzzles are considered. This can take a while with
+     * large collections, do not call it from UI thread.
+     *
+     * @return IDs of puzzles in each class which has more than one puzzle, ordered by ID.
+     */
+    fun findEquivalentPuzzles(): List<LongArray> {
+        // only givens are compared, they are always in data column, so changes need not to be compacted
+        val canonicalizer = PuzzleCanonicalizer()
+        val classes = HashMap<String, MutableList<Long>>()
+        val db = mOpenHelper.readableDatabase
+        db.query(SUDOKU_TABLE_NAME, arrayOf(BaseColumns._ID, SudokuColumns.DATA), null,
+                null, null, null, BaseColumns._ID).use { c ->
+            while (c.moveToNext()) {
+                val cells = try {
+                    getCells(c, 1)
+                } catch (e: IllegalArgumentException) {
+                    null
+                }
+                if (cells == null || cells.geometry != BoardGeometry.STANDARD) {
+                    continue
+                }
+                val form = canonicalizer.canonicalize(cells)
+                var ids = classes[form]
+                if (ids == null) {
+                    ids = ArrayList(2)
+                    classes[form] = ids
+                }
+                ids.add(c.getLong(0))
+            }
+        }
+
+        val result = ArrayList<LongArray>()
+        for (ids in classes.values) {
+            if (ids.size > 1) {
+                result.add(ids.toLongArray())
+            }
+        }
+        return result
+    }
+
     /**
      * Updates sudoku game in the database.
      *
+     * Board is written only if it has changed since it was loaded or last saved. When just
+     * a few cells have changed, only these cells are appended to the game's change log
+     * (tens of bytes), whole board is written once the log grows too long. Changes of givens
+     * are never logged, see [SudokuChangeColumns].
+     *
      * @param sudoku
+     * @param writeBoard Write the whole board even if changes could be logged, so that data
+     * column is up to date (for example when the game is left).
      */
-    fun updateSudoku(sudoku: SudokuGame) {
+    @JvmOverloads
+    fun updateSudoku(sudoku: SudokuGame, writeBoard: Boolean = false) {
+        val cells = sudoku.cells!!
         val values = ContentValues()
-        values.put(SudokuColumns.DATA, sudoku.cells!!.serialize())
         values.put(SudokuColumns.LAST_PLAYED, sudoku.lastPlayed)
         values.put(SudokuColumns.STATE, sudoku.state)
         values.put(SudokuColumns.TIME, sudoku.time)
         values.put(SudokuColumns.PUZZLE_NOTE, sudoku.note)
 
         val db = mOpenHelper.writableDatabase
-        db.update(SUDOKU_TABLE_NAME, values, BaseColumns._ID + "=" + sudoku.id, null)
+        db.beginTransaction()
+        try {
+            if (sudoku.persistedCellsHash != cells.zobristHash) {
+                if (!writeBoard && canLogChanges(db, sudoku, cells)) {
+                    val change = ContentValues()
+                    change.put(SudokuChangeColumns.SUDOKU_ID, sudoku.id)
+                    change.put(SudokuChangeColumns.DATA, cells.serializeChanges())
+                    db.insert(CHANGE_TABLE_NAME, null, change)
+                } else {
+                    if (mDataBuffer?.size != cells.binarySize) {
+                        mDataBuffer = ByteArray(cells.binarySize)
+                    }
+                    cells.serializeBinary(mDataBuffer!!, 0)
+                    values.put(SudokuColumns.DATA, mDataBuffer)
+                    db.delete(CHANGE_TABLE_NAME, SudokuChangeColumns.SUDOKU_ID + "=" + sudoku.id, null)
+                }
+            }
+            db.update(SUDOKU_TABLE_NAME, values, BaseColumns._ID + "=" + sudoku.id, null)
+            db.setTransactionSuccessful()
+        } finally {
+            db.endTransaction()
+        }
+        sudoku.persistedCellsHash = cells.zobristHash
+        cells.clearDirtyCells()
+    }
+
+    private fun canLogChanges(db: SQLiteDatabase, sudoku: SudokuGame, cells: CellCollection): Boolean {
+        // board which was not loaded from the database has no base to apply changes to;
+        // givens are always written as a whole, so queries can read them from data column
+        return sudoku.persistedCellsHash != null
+                && !cells.hasEditableChanges
+                && cells.changesSize * 2 <= cells.binarySize
+                && DatabaseUtils.queryNumEntries(db, CHANGE_TABLE_NAME,
+                SudokuChangeColumns.SUDOKU_ID + "=" + sudoku.id) < MAX_LOGGED_CHANGES
+    }
+
+    /**
+     * Applies logged changes of given puzzle to its board, oldest first.
+     */
+    private fun applyChanges(db: SQLiteDatabase, sudokuID: Long, cells: CellCollection) {
+        db.query(CHANGE_TABLE_NAME, arrayOf(SudokuChangeColumns.DATA), SudokuChangeColumns.SUDOKU_ID + "=" + sudokuID,
+                null, null, null, BaseColumns._ID).use { c ->
+            while (c.moveToNext()) {
+                cells.applyChanges(c.getBlob(0))
+            }
+        }
+    }
+
+    /**
+     * Writes boards of all puzzles with logged changes as a whole and clears their logs.
+     * Usually there is at most one such puzzle, the one played last. Call it on a background
+     * thread before reading whole boards from data column, for example before export.
+     */
+    fun compactChanges() {
+        val db = mOpenHelper.writableDatabase
+        val sudokuIDs = ArrayList<Long>()
+        db.rawQuery("select distinct " + SudokuChangeColumns.SUDOKU_ID + " from " + CHANGE_TABLE_NAME, null).use { c ->
+            while (c.moveToNext()) {
+                sudokuIDs.add(c.getLong(0))
+            }
+        }
+
+        for (sudokuID in sudokuIDs) {
+            db.beginTransaction()
+            try {
+                db.query(SUDOKU_TABLE_NAME, arrayOf(SudokuColumns.DATA), BaseColumns._ID + "=" + sudokuID,
+                        null, null, null, null).use { c ->
+                    val cells = if (c.moveToFirst()) getCells(c, 0) else null
+                    if (cells != null) {
+                        applyChanges(db, sudokuID, cells)
+                        val values = ContentValues()
+                        values.put(SudokuColumns.DATA, cells.serializeBinary())
+                        db.update(SUDOKU_TABLE_NAME, values, BaseColumns._ID + "=" + sudokuID, null)
+                    }
+                }
+                db.delete(CHANGE_TABLE_NAME, SudokuChangeColumns.SUDOKU_ID + "=" + sudokuID, null)
+                db.setTransactionSuccessful()
+            } finally {
+                db.endTransaction()
+            }
+        }
     }
 
 
@@ -426,6 +764,7 @@ class SudokuDatabase(context: Context) {
      */
     fun deleteSudoku(sudokuID: Long) {
         val db = mOpenHelper.writableDatabase
+        db.delete(CHANGE_TABLE_NAME, SudokuChangeColumns.SUDOKU_ID + "=" + sudokuID, null)
         db.delete(SUDOKU_TABLE_NAME, BaseColumns._ID + "=" + sudokuID, null)
     }
 
@@ -455,8 +794,63 @@ class SudokuDatabase(context: Context) {
 
         val SUDOKU_TABLE_NAME = "sudoku"
         val FOLDER_TABLE_NAME = "folder"
+        val CHANGE_TABLE_NAME = "sudoku_change"
+
+        /**
+         * Value of [SudokuColumns.DIFFICULTY] for puzzles [cz.romario.opensudoku.game.LogicalSolver]
+         * cannot solve, they are harder than [cz.romario.opensudoku.game.Difficulty.EXPERT]
+         * (or have no solution).
+         */
+        const val DIFFICULTY_BEYOND_TECHNIQUES = 4
+
+        // log of changes is compacted into the board after this many saves
+        private const val MAX_LOGGED_CHANGES = 20
+
+        private const val MIGRATION_CHUNK_SIZE = 200
 
-        //private static final String TAG = "SudokuDatabase";
+        private val TAG = "SudokuDatabase"
         private val INBOX_FOLDER_NAME = "Inbox"
+
+        /**
+         * Reads board from [SudokuColumns.DATA] column. Column holds binary data
+         * ([CellCollection.DATA_VERSION_2]), or text data in rows written by older versions
+         * which have not been migrated yet.
+         *
+         * @return Board or null if column is empty.
+         */
+        @JvmStatic
+        fun getCells(c: Cursor, columnIndex: Int): CellCollection? {
+            return when (c.getType(columnIndex)) {
+                Cursor.FIELD_TYPE_NULL -> null
+                Cursor.FIELD_TYPE_BLOB -> CellCollection.deserialize(c.getBlob(columnIndex))
+                else -> CellCollection.deserialize(c.getString(columnIndex))
+            }
+        }
+
+        /**
+         * Parses and solves imported puzzle, unless its solution is passed in [pars]. Does not
+         * touch the database, so it can be called on worker threads, each with its own solvers.
+         */
+        @Throws(SudokuInvalidFormatException::class)
+        internal fun prepareImport(pars: SudokuImportParams, solvers: SolverCache): ImportedSudoku {
+            if (pars.data == null) {
+                throw SudokuInvalidFormatException(pars.data!!)
+            }
+
+            // text formats are accepted on import, but puzzles are always stored in binary form;
+            // data are validated while they are parsed
+            val cells = try {
+                CellCollection.deserialize(pars.data!!)
+            } catch (e: IllegalArgumentException) {
+                throw SudokuInvalidFormatException(pars.data!!)
+            }
+
+            val known = pars.solution
+            val solution = if (known != null) PuzzleSolution.unique(known)
+            else PuzzleSolution.find(cells, solvers.get(cells.geometry))
+            return ImportedSudoku(pars, cells.serializeBinary(), solution)
+        }
     }
+
+    internal class ImportedSudoku(val pars: SudokuImportParams, val data: ByteArray, val solution: PuzzleSolution)
 }
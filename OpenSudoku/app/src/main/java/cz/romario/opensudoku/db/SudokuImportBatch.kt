@@ -0,0 +1,104 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+
+package cz.romario.opensudoku.db
+
+import java.util.*
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+
+/**
+ * Imports puzzles in bulk. Puzzles are parsed and solved on a pool of worker threads ahead of
+ * inserting, inserts are done on the calling thread (inside its transaction) in order in which
+ * puzzles were added.
+ *
+ * Call [finish] to insert remaining puzzles, [close] to stop workers when import fails.
+ */
+class SudokuImportBatch(private val database: SudokuDatabase) {
+
+    private val threadCount = Math.max(1, Runtime.getRuntime().availableProcessors())
+    private val executor: ExecutorService = Executors.newFixedThreadPool(threadCount)
+    private val pending = ArrayDeque<Pending>()
+
+    private val solvers = object : ThreadLocal<SolverCache>() {
+        override fun initialValue() = SolverCache(false)
+    }
+
+    /**
+     * Adds puzzle to the batch. Parameters are copied, so the caller may reuse them.
+     *
+     * @throws SudokuInvalidFormatException If some of previously added puzzles cannot be parsed.
+     */
+    @Throws(SudokuInvalidFormatException::class)
+    fun add(folderID: Long, pars: SudokuImportParams) {
+        val copy = pars.copy()
+        pending.add(Pending(folderID, executor.submit(Callable { SudokuDatabase.prepareImport(copy, solvers.get()) })))
+        // bound memory held by prepared puzzles, while keeping all workers busy
+        if (pending.size >= threadCount * MAX_PENDING_PER_THREAD) {
+            insertNext()
+        }
+    }
+
+    /**
+     * Inserts all added puzzles and stops worker threads.
+     */
+    @Throws(SudokuInvalidFormatException::class)
+    fun finish() {
+        try {
+            while (!pending.isEmpty()) {
+                insertNext()
+            }
+        } finally {
+            close()
+        }
+    }
+
+    /**
+     * Stops worker threads, puzzles which have not been inserted yet are dropped.
+     */
+    fun close() {
+        executor.shutdownNow()
+        pending.clear()
+    }
+
+    @Throws(SudokuInvalidFormatException::class)
+    private fun insertNext() {
+        val next = pending.poll()
+        val sudoku = try {
+            next.future.get()
+        } catch (e: ExecutionException) {
+            val cause = e.cause
+            if (cause is SudokuInvalidFormatException) {
+                throw cause
+            }
+            throw RuntimeException(cause)
+        }
+        database.insertImported(next.folderID, sudoku)
+    }
+
+    private class Pending(val folderID: Long, val future: Future<SudokuDatabase.ImportedSudoku>)
+
+    companion object {
+        private const val MAX_PENDING_PER_THREAD = 64
+    }
+}
@@ -1,5 +1,6 @@
 package cz.romario.opensudoku.db
 
+import cz.romario.opensudoku.game.Difficulty
 import cz.romario.opensudoku.game.SudokuGame
 
 class SudokuImportParams {
@@ -9,6 +10,23 @@ class SudokuImportParams {
     var lastPlayed: Long = 0
     var data: String? = null
     var note: String? = null
+    // unique solution if it is already known, the puzzle is solved on import otherwise
+    var solution: IntArray? = null
+    // difficulty if it is already known, the puzzle is left for SudokuRatingJob otherwise
+    var difficulty: Difficulty? = null
+
+    fun copy(): SudokuImportParams {
+        val copy = SudokuImportParams()
+        copy.created = created
+        copy.state = state
+        copy.time = time
+        copy.lastPlayed = lastPlayed
+        copy.data = data
+        copy.note = note
+        copy.solution = solution
+        copy.difficulty = difficulty
+        return copy
+    }
 
     fun clear() {
         created = 0
@@ -17,5 +35,7 @@ class SudokuImportParams {
         lastPlayed = 0
         data = null
         note = null
+        solution = null
+        difficulty = null
     }
 }
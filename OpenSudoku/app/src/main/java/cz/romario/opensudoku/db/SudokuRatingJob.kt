@@ -0,0 +1,151 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+
+package cz.romario.opensudoku.db
+
+import android.util.Log
+import cz.romario.opensudoku.game.BoardGeometry
+import cz.romario.opensudoku.game.LogicalSolver
+import java.util.*
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+
+/**
+ * Rates difficulty of puzzles by [LogicalSolver] and stores it in [SudokuColumns.DIFFICULTY].
+ * Only puzzles which have not been rated yet are processed, so job which was interrupted
+ * continues where it stopped when it is run again.
+ *
+ * Puzzles are read in chunks, each chunk is rated on all cores and written in one transaction.
+ *
+ * @param folderID Id of folder to rate, -1 for all folders.
+ */
+class SudokuRatingJob(private val database: SudokuDatabase, private val folderID: Long) {
+
+    interface OnProgressListener {
+        fun onProgress(ratedCount: Int, totalCount: Int)
+    }
+
+    @Volatile
+    var isCancelled = false
+        private set
+
+    private val threadCount = Runtime.getRuntime().availableProcessors()
+    // solvers of each thread, by board size
+    private val solvers = Array(threadCount) { HashMap<BoardGeometry, LogicalSolver>() }
+
+    private val ids = LongArray(CHUNK_SIZE)
+    private val geometries = arrayOfNulls<BoardGeometry>(CHUNK_SIZE)
+    private val boards = arrayOfNulls<IntArray>(CHUNK_SIZE)
+    private val difficulties = IntArray(CHUNK_SIZE)
+
+    /**
+     * Stops the job after the chunk being rated, may be called from any thread.
+     */
+    fun cancel() {
+        isCancelled = true
+    }
+
+    /**
+     * Rates puzzles, blocks until all are rated or the job is cancelled.
+     *
+     * @return Number of rated puzzles.
+     */
+    fun run(listener: OnProgressListener?): Int {
+        val totalCount = database.getUnratedSudokuCount(folderID).toInt()
+        val executor = Executors.newFixedThreadPool(threadCount)
+        val futures = ArrayList<Future<*>>(threadCount)
+        var ratedCount = 0
+        try {
+            var lastID = -1L
+            while (!isCancelled) {
+                val count = readChunk(lastID)
+                if (count == 0) {
+                    break
+                }
+                lastID = ids[count - 1]
+
+                futures.clear()
+                for (t in 0 until threadCount) {
+                    futures.add(executor.submit(Runnable {
+                        var i = t
+                        while (i < count) {
+                            difficulties[i] = rate(t, geometries[i], boards[i])
+                            i += threadCount
+                        }
+                    }))
+                }
+                for (future in futures) {
+                    future.get()
+                }
+
+                database.updateDifficulties(ids, difficulties, count)
+                ratedCount += count
+                listener?.onProgress(ratedCount, totalCount)
+            }
+        } finally {
+            executor.shutdownNow()
+        }
+        return ratedCount
+    }
+
+    /**
+     * Reads givens of next chunk of unrated puzzles.
+     *
+     * @return Number of read puzzles.
+     */
+    private fun readChunk(afterID: Long): Int {
+        var count = 0
+        database.getUnratedSudokus(folderID, afterID, CHUNK_SIZE).use { c ->
+            while (c.moveToNext()) {
+                ids[count] = c.getLong(0)
+                val cells = try {
+                    SudokuDatabase.getCells(c, 1)
+                } catch (e: IllegalArgumentException) {
+                    Log.w(TAG, "Cannot read data of sudoku " + ids[count] + ".", e)
+                    null
+                }
+                geometries[count] = cells?.geometry
+                boards[count] = if (cells == null) null else IntArray(cells.geometry.cellCount) {
+                    if (cells.isEditable(it)) 0 else cells.getValue(it)
+                }
+                count++
+            }
+        }
+        return count
+    }
+
+    private fun rate(thread: Int, geometry: BoardGeometry?, values: IntArray?): Int {
+        if (geometry == null || values == null) {
+            return SudokuDatabase.DIFFICULTY_BEYOND_TECHNIQUES
+        }
+        var solver = solvers[thread][geometry]
+        if (solver == null) {
+            solver = LogicalSolver(geometry)
+            solvers[thread][geometry] = solver
+        }
+        return solver.rate(values)?.ordinal ?: SudokuDatabase.DIFFICULTY_BEYOND_TECHNIQUES
+    }
+
+    companion object {
+        private val TAG = "SudokuRatingJob"
+
+        private const val CHUNK_SIZE = 200
+    }
+}
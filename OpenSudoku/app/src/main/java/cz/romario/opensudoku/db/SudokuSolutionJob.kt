@@ -0,0 +1,136 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+
+package cz.romario.opensudoku.db
+
+import android.util.Log
+import cz.romario.opensudoku.game.CellCollection
+import cz.romario.opensudoku.game.PuzzleSolution
+import java.util.*
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+
+/**
+ * Finds solutions of puzzles which have no [SudokuColumns.SOLUTION_COUNT] yet (puzzles created
+ * before solutions were stored, default puzzles and puzzles whose givens were edited) and
+ * stores them. Only unsolved puzzles are processed, so job which was interrupted continues
+ * where it stopped when it is run again.
+ *
+ * Puzzles are read in chunks, each chunk is solved on all cores and written in one transaction,
+ * like in [SudokuRatingJob].
+ */
+class SudokuSolutionJob(private val database: SudokuDatabase) {
+
+    @Volatile
+    var isCancelled = false
+        private set
+
+    private val threadCount = Math.max(1, Runtime.getRuntime().availableProcessors())
+    // each worker solves on its own solvers, so large boards are not split across threads
+    private val solvers = object : ThreadLocal<SolverCache>() {
+        override fun initialValue() = SolverCache(false)
+    }
+
+    private val ids = LongArray(CHUNK_SIZE)
+    private val cells = arrayOfNulls<CellCollection>(CHUNK_SIZE)
+    private val solutions = arrayOfNulls<PuzzleSolution>(CHUNK_SIZE)
+
+    /**
+     * Stops the job after the chunk being solved, may be called from any thread.
+     */
+    fun cancel() {
+        isCancelled = true
+    }
+
+    /**
+     * Solves puzzles, blocks until all are solved or the job is cancelled.
+     *
+     * @return Number of solved puzzles.
+     */
+    fun run(): Int {
+        val executor = Executors.newFixedThreadPool(threadCount)
+        val futures = ArrayList<Future<*>>(threadCount)
+        var solvedCount = 0
+        try {
+            var lastID = -1L
+            while (!isCancelled) {
+                val count = readChunk(lastID)
+                if (count == 0) {
+                    break
+                }
+                lastID = ids[count - 1]
+
+                futures.clear()
+                for (t in 0 until threadCount) {
+                    futures.add(executor.submit(Runnable {
+                        var i = t
+                        while (i < count) {
+                            solutions[i] = solve(cells[i])
+                            i += threadCount
+                        }
+                    }))
+                }
+                for (future in futures) {
+                    future.get()
+                }
+
+                database.updateSolutions(ids, solutions, count)
+                solvedCount += count
+            }
+        } finally {
+            executor.shutdownNow()
+            Arrays.fill(cells, null)
+            Arrays.fill(solutions, null)
+        }
+        return solvedCount
+    }
+
+    /**
+     * Reads givens of next chunk of unsolved puzzles.
+     *
+     * @return Number of read puzzles.
+     */
+    private fun readChunk(afterID: Long): Int {
+        var count = 0
+        database.getUnsolvedSudokus(afterID, CHUNK_SIZE).use { c ->
+            while (c.moveToNext()) {
+                ids[count] = c.getLong(0)
+                cells[count] = try {
+                    SudokuDatabase.getCells(c, 1)
+                } catch (e: IllegalArgumentException) {
+                    Log.w(TAG, "Cannot read data of sudoku " + ids[count] + ".", e)
+                    null
+                }
+                count++
+            }
+        }
+        return count
+    }
+
+    private fun solve(cells: CellCollection?): PuzzleSolution? {
+        return if (cells == null) null else PuzzleSolution.find(cells, solvers.get().get(cells.geometry))
+    }
+
+    companion object {
+        private val TAG = "SudokuSolutionJob"
+
+        private const val CHUNK_SIZE = 200
+    }
+}
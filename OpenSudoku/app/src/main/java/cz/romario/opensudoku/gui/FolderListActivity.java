@@ -48,6 +48,7 @@ import android.widget.TextView;
 import cz.romario.opensudoku.R;
 import cz.romario.opensudoku.db.FolderColumns;
 import cz.romario.opensudoku.db.SudokuDatabase;
+import cz.romario.opensudoku.game.Difficulty;
 import cz.romario.opensudoku.game.FolderInfo;
 import cz.romario.opensudoku.gui.FolderDetailLoader.FolderDetailCallback;
 import cz.romario.opensudoku.utils.AndroidUtils;
@@ -104,10 +105,14 @@ public class FolderListActivity extends AppCompatActivity {
 	public static final int MENU_ITEM_EXPORT = Menu.FIRST + 4;
 	public static final int MENU_ITEM_EXPORT_ALL = Menu.FIRST + 5;
 	public static final int MENU_ITEM_IMPORT = Menu.FIRST + 6;
+	public static final int MENU_ITEM_GENERATE = Menu.FIRST + 7;
+	public static final int MENU_ITEM_RATE = Menu.FIRST + 8;
+	public static final int MENU_ITEM_RATE_ALL = Menu.FIRST + 9;
 	private static final int DIALOG_ABOUT = 0;
 	private static final int DIALOG_ADD_FOLDER = 1;
 	private static final int DIALOG_RENAME_FOLDER = 2;
 	private static final int DIALOG_DELETE_FOLDER = 3;
+	private static final int DIALOG_GENERATE = 4;
 	private static final String TAG = "FolderListActivity";
 	private Cursor mCursor;
 	private SudokuDatabase mDatabase;
@@ -167,6 +172,9 @@ public class FolderListActivity extends AppCompatActivity {
 		// show changelog on first run
 		Changelog changelog = new Changelog(this);
 		changelog.showOnFirstRun();
+
+		// convert and solve puzzles left by database upgrade (and default puzzles on first run)
+		new SudokuSolutionTask(this).execute();
 	}
 
 	@Override
@@ -208,12 +216,18 @@ public class FolderListActivity extends AppCompatActivity {
 		menu.add(0, MENU_ITEM_ADD, 0, R.string.add_folder)
 				.setShortcut('3', 'a')
 				.setIcon(android.R.drawable.ic_menu_add);
+		menu.add(0, MENU_ITEM_GENERATE, 0, R.string.generate_sudoku)
+				.setShortcut('9', 'g')
+				.setIcon(android.R.drawable.ic_menu_edit);
 		menu.add(0, MENU_ITEM_IMPORT, 0, R.string.import_file)
 				.setShortcut('8', 'i')
 				.setIcon(android.R.drawable.ic_menu_upload);
 		menu.add(0, MENU_ITEM_EXPORT_ALL, 1, R.string.export_all_folders)
 				.setShortcut('7', 'e')
 				.setIcon(android.R.drawable.ic_menu_share);
+		menu.add(0, MENU_ITEM_RATE_ALL, 1, R.string.rate_all_puzzles)
+				.setShortcut('6', 'r')
+				.setIcon(android.R.drawable.ic_menu_sort_by_size);
 		menu.add(0, MENU_ITEM_ABOUT, 2, R.string.about)
 				.setShortcut('1', 'h')
 				.setIcon(android.R.drawable.ic_menu_info_details);
@@ -252,6 +266,7 @@ public class FolderListActivity extends AppCompatActivity {
 		menu.add(0, MENU_ITEM_EXPORT, 0, R.string.export_folder);
 		menu.add(0, MENU_ITEM_RENAME, 1, R.string.rename_folder);
 		menu.add(0, MENU_ITEM_DELETE, 2, R.string.delete_folder);
+		menu.add(0, MENU_ITEM_RATE, 3, R.string.rate_puzzles);
 	}
 
 	@Override
@@ -315,6 +330,24 @@ public class FolderListActivity extends AppCompatActivity {
 						})
 						.setNegativeButton(android.R.string.no, null)
 						.create();
+			case DIALOG_GENERATE:
+				final String[] difficultyNames = getResources().getStringArray(R.array.difficulties);
+				return new AlertDialog.Builder(this)
+						.setIcon(android.R.drawable.ic_menu_edit)
+						.setTitle(R.string.select_difficulty)
+						.setItems(difficultyNames, new DialogInterface.OnClickListener() {
+							public void onClick(DialogInterface dialog, int which) {
+								Intent intent = new Intent();
+								intent.setClass(FolderListActivity.this, SudokuImportActivity.class);
+								intent.putExtra(SudokuImportActivity.EXTRA_FOLDER_NAME,
+										getString(R.string.generated_folder_name, difficultyNames[which]));
+								intent.putExtra(SudokuImportActivity.EXTRA_GENERATE_DIFFICULTY,
+										Difficulty.values()[which].name());
+								startActivity(intent);
+							}
+						})
+						.setNegativeButton(android.R.string.cancel, null)
+						.create();
 
 
 		}
@@ -371,6 +404,9 @@ public class FolderListActivity extends AppCompatActivity {
 				mDeleteFolderID = info.id;
 				showDialog(DIALOG_DELETE_FOLDER);
 				return true;
+			case MENU_ITEM_RATE:
+				new SudokuRatingTask(this, info.id).execute();
+				return true;
 		}
 		return false;
 	}
@@ -382,6 +418,9 @@ public class FolderListActivity extends AppCompatActivity {
 			case MENU_ITEM_ADD:
 				showDialog(DIALOG_ADD_FOLDER);
 				return true;
+			case MENU_ITEM_GENERATE:
+				showDialog(DIALOG_GENERATE);
+				return true;
 			case MENU_ITEM_IMPORT:
 				intent = new Intent();
 				intent.setClass(this, FileListActivity.class);
@@ -394,6 +433,9 @@ public class FolderListActivity extends AppCompatActivity {
 				intent.putExtra(SudokuExportActivity.EXTRA_FOLDER_ID, SudokuExportActivity.ALL_FOLDERS);
 				startActivity(intent);
 				return true;
+			case MENU_ITEM_RATE_ALL:
+				new SudokuRatingTask(this, -1).execute();
+				return true;
 			case MENU_ITEM_ABOUT:
 				showDialog(DIALOG_ABOUT);
 				return true;
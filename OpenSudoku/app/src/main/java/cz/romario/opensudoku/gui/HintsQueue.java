@@ -110,7 +110,7 @@ public class HintsQueue {
 	private void showHintDialog(Message hint) {
 		synchronized (mHintDialog) {
 			mHintDialog.setTitle(mContext.getString(hint.titleResID));
-			mHintDialog.setMessage(mContext.getText(hint.messageResID));
+			mHintDialog.setMessage(hint.message != null ? hint.message : mContext.getText(hint.messageResID));
 			mHintDialog.show();
 		}
 	}
@@ -132,6 +132,16 @@ public class HintsQueue {
 		addHint(hint);
 	}
 
+	/**
+	 * Shows hint with text composed by the caller.
+	 */
+	public void showHint(int titleResID, CharSequence message) {
+		Message hint = new Message();
+		hint.titleResID = titleResID;
+		hint.message = message;
+		addHint(hint);
+	}
+
 	public void showOneTimeHint(String key, int titleResID, int messageResID, Object... args) {
 		if (mOneTimeHintsEnabled) {
 
@@ -181,6 +191,7 @@ public class HintsQueue {
 	private static class Message {
 		int titleResID;
 		int messageResID;
+		CharSequence message;
 		//Object[] args;
 	}
 
@@ -3,12 +3,15 @@ package cz.romario.opensudoku.gui;
 import android.content.Context;
 import android.content.SharedPreferences;
 
+import cz.romario.opensudoku.game.Difficulty;
 import cz.romario.opensudoku.game.SudokuGame;
 
 class SharedPreferenceSudokuFilterFactory {
     private static final String FILTER_STATE_NOT_STARTED = "filter" + SudokuGame.GAME_STATE_NOT_STARTED;
     private static final String FILTER_STATE_PLAYING = "filter" + SudokuGame.GAME_STATE_PLAYING;
     private static final String FILTER_STATE_SOLVED = "filter" + SudokuGame.GAME_STATE_COMPLETED;
+    private static final String FILTER_DIFFICULTY = "filter_difficulty";
+    private static final String SORT_BY_DIFFICULTY = "sort_by_difficulty";
     private SharedPreferences settings;
 
     public SharedPreferenceSudokuFilterFactory(SharedPreferences settings) {
@@ -20,6 +23,9 @@ class SharedPreferenceSudokuFilterFactory {
         filter.showStateNotStarted = settings.getBoolean(FILTER_STATE_NOT_STARTED, true);
         filter.showStatePlaying = settings.getBoolean(FILTER_STATE_PLAYING, true);
         filter.showStateCompleted = settings.getBoolean(FILTER_STATE_SOLVED, true);
+        String difficulty = settings.getString(FILTER_DIFFICULTY, null);
+        filter.difficulty = difficulty != null ? Difficulty.valueOf(difficulty) : null;
+        filter.sortByDifficulty = settings.getBoolean(SORT_BY_DIFFICULTY, false);
         return filter;
     }
 }
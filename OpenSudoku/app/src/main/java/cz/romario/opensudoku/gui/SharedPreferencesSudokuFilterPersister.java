@@ -8,6 +8,8 @@ class SharedPreferencesSudokuFilterPersister {
     private static final String FILTER_STATE_NOT_STARTED = "filter" + SudokuGame.GAME_STATE_NOT_STARTED;
     private static final String FILTER_STATE_PLAYING = "filter" + SudokuGame.GAME_STATE_PLAYING;
     private static final String FILTER_STATE_SOLVED = "filter" + SudokuGame.GAME_STATE_COMPLETED;
+    private static final String FILTER_DIFFICULTY = "filter_difficulty";
+    private static final String SORT_BY_DIFFICULTY = "sort_by_difficulty";
     private SharedPreferences settings;
 
     public SharedPreferencesSudokuFilterPersister(SharedPreferences settings) {
@@ -19,6 +21,8 @@ class SharedPreferencesSudokuFilterPersister {
                 .putBoolean(FILTER_STATE_NOT_STARTED, filter.showStateNotStarted)
                 .putBoolean(FILTER_STATE_PLAYING, filter.showStatePlaying)
                 .putBoolean(FILTER_STATE_SOLVED, filter.showStateCompleted)
+                .putString(FILTER_DIFFICULTY, filter.difficulty != null ? filter.difficulty.name() : null)
+                .putBoolean(SORT_BY_DIFFICULTY, filter.sortByDifficulty)
                 .apply();
     }
 }
@@ -30,9 +30,10 @@ import android.view.KeyEvent;
 import android.view.MotionEvent;
 import android.view.View;
 
-import java.util.Collection;
+import java.util.BitSet;
 
 import cz.romario.opensudoku.R;
+import cz.romario.opensudoku.game.BoardGeometry;
 import cz.romario.opensudoku.game.Cell;
 import cz.romario.opensudoku.game.CellCollection;
 import cz.romario.opensudoku.game.CellCollection.OnChangeListener;
@@ -79,6 +80,7 @@ public class SudokuBoardView extends View {
 	private Cell mSelectedCell;
 	private boolean mReadonly = false;
 	private boolean mHighlightWrongVals = true;
+	private boolean mCheckAgainstSolution = false;
 	private boolean mHighlightTouchedCell = true;
 	private boolean mAutoHideTouchedCellHint = true;
 	private SudokuGame mGame;
@@ -241,7 +243,7 @@ public class SudokuBoardView extends View {
 
 			mCells.addOnChangeListener(new OnChangeListener() {
 				@Override
-				public void onChange() {
+				public void onChange(BitSet changedCells) {
 					postInvalidate();
 				}
 			});
@@ -272,6 +274,20 @@ public class SudokuBoardView extends View {
 		postInvalidate();
 	}
 
+	public boolean getCheckAgainstSolution() {
+		return mCheckAgainstSolution;
+	}
+
+	/**
+	 * Highlights also values which differ from the solution of the puzzle, see
+	 * {@link SudokuGame#isWrong(int)}. Works only when board shows game set by
+	 * {@link #setGame(SudokuGame)}.
+	 */
+	public void setCheckAgainstSolution(boolean checkAgainstSolution) {
+		mCheckAgainstSolution = checkAgainstSolution;
+		postInvalidate();
+	}
+
 	public boolean getHighlightTouchedCell() {
 		return mHighlightTouchedCell;
 	}
@@ -419,15 +435,29 @@ public class SudokuBoardView extends View {
 		mCellValuePaint.setTextSize(cellTextSize);
 		mCellValueReadonlyPaint.setTextSize(cellTextSize);
 		mCellValueInvalidPaint.setTextSize(cellTextSize);
-		mCellNotePaint.setTextSize(mCellHeight / 3.0f);
+		mCellNotePaint.setTextSize(mCellHeight / getNoteColumns());
 		// compute offsets in each cell to center the rendered number
-		mNumberLeft = (int) ((mCellWidth - mCellValuePaint.measureText("9")) / 2);
+		mNumberLeft = (int) ((mCellWidth - mCellValuePaint.measureText(getBoardSize() > 9 ? "99" : "9")) / 2);
 		mNumberTop = (int) ((mCellHeight - mCellValuePaint.getTextSize()) / 2);
 
 		// add some offset because in some resolutions notes are cut-off in the top
 		mNoteTop = mCellHeight / 50.0f;
 	}
 
+	/**
+	 * Returns number of rows (and columns) of displayed board.
+	 */
+	private int getBoardSize() {
+		return mCells != null ? mCells.getSize() : CellCollection.Companion.getSUDOKU_SIZE();
+	}
+
+	/**
+	 * Returns number of columns in which notes are laid out in the cell (3 on standard board).
+	 */
+	private int getNoteColumns() {
+		return (int) Math.ceil(Math.sqrt(getBoardSize()));
+	}
+
 	private void computeSectorLineWidth(int widthInPx, int heightInPx) {
 		int sizeInPx = widthInPx < heightInPx ? widthInPx : heightInPx;
 		float dipScale = getContext().getResources().getDisplayMetrics().density;
@@ -489,8 +519,8 @@ public class SudokuBoardView extends View {
 	 * @return True, if cell was successfuly selected.
 	 */
 	private boolean moveCellSelectionTo(int row, int col) {
-		if (col >= 0 && col < CellCollection.Companion.getSUDOKU_SIZE()
-				&& row >= 0 && row < CellCollection.Companion.getSUDOKU_SIZE()) {
+		if (col >= 0 && col < getBoardSize()
+				&& row >= 0 && row < getBoardSize()) {
 			mSelectedCell = mCells.getCell(row, col);
 			onCellSelected(mSelectedCell);
 
@@ -516,8 +546,8 @@ public class SudokuBoardView extends View {
 		int row = (int) (ly / mCellHeight);
 		int col = (int) (lx / mCellWidth);
 
-		if (col >= 0 && col < CellCollection.Companion.getSUDOKU_SIZE()
-				&& row >= 0 && row < CellCollection.Companion.getSUDOKU_SIZE()) {
+		if (col >= 0 && col < getBoardSize()
+				&& row >= 0 && row < getBoardSize()) {
 			return mCells.getCell(row, col);
 		} else {
 			return null;
@@ -576,8 +606,8 @@ public class SudokuBoardView extends View {
 			height = heightSize;
 		}
 
-		mCellWidth = (width - getPaddingLeft() - getPaddingRight()) / 9.0f;
-		mCellHeight = (height - getPaddingTop() - getPaddingBottom()) / 9.0f;
+		mCellWidth = (width - getPaddingLeft() - getPaddingRight()) / (float) getBoardSize();
+		mCellHeight = (height - getPaddingTop() - getPaddingBottom()) / (float) getBoardSize();
 
 		setMeasuredDimension(width, height);
 
@@ -596,15 +626,24 @@ public class SudokuBoardView extends View {
 
 		int paddingLeft = getPaddingLeft();
 		int paddingTop = getPaddingTop();
-		mCellWidth = width / 9.0f;
-		mCellHeight = height / 9.0f;
+		int size = getBoardSize();
+		BoardGeometry geometry = mCells != null ? mCells.getGeometry() : BoardGeometry.STANDARD;
+		int sectorWidth = geometry.getSectorWidth();
+		int sectorHeight = geometry.getSectorHeight();
+		mCellWidth = width / (float) size;
+		mCellHeight = height / (float) size;
 		updateTextSize();
-		// draw secondary background
+		// draw secondary background (every other sector, like checkerboard)
 		if (mBackgroundColorSecondary.getColor() != NO_COLOR) {
-			canvas.drawRect(3 * mCellWidth, 0, 6 * mCellWidth, 3 * mCellWidth, mBackgroundColorSecondary);
-			canvas.drawRect(0, 3 * mCellWidth, 3 * mCellWidth, 6 * mCellWidth, mBackgroundColorSecondary);
-			canvas.drawRect(6 * mCellWidth, 3 * mCellWidth, 9 * mCellWidth, 6 * mCellWidth, mBackgroundColorSecondary);
-			canvas.drawRect(3 * mCellWidth, 6 * mCellWidth, 6 * mCellWidth, 9 * mCellWidth, mBackgroundColorSecondary);
+			for (int sr = 0; sr < size / sectorHeight; sr++) {
+				for (int sc = 0; sc < size / sectorWidth; sc++) {
+					if ((sr + sc) % 2 == 1) {
+						canvas.drawRect(sc * sectorWidth * mCellWidth, sr * sectorHeight * mCellHeight,
+								(sc + 1) * sectorWidth * mCellWidth, (sr + 1) * sectorHeight * mCellHeight,
+								mBackgroundColorSecondary);
+					}
+				}
+			}
 		}
 
 		// draw cells
@@ -615,16 +654,18 @@ public class SudokuBoardView extends View {
 
 			float numberAscent = mCellValuePaint.ascent();
 			float noteAscent = mCellNotePaint.ascent();
-			float noteWidth = mCellWidth / 3f;
-			for (int row = 0; row < 9; row++) {
-				for (int col = 0; col < 9; col++) {
-					Cell cell = mCells.getCell(row, col);
+			int noteColumns = getNoteColumns();
+			float noteWidth = mCellWidth / noteColumns;
+			for (int row = 0; row < size; row++) {
+				for (int col = 0; col < size; col++) {
+					int index = row * size + col;
 
 					cellLeft = Math.round((col * mCellWidth) + paddingLeft);
 					cellTop = Math.round((row * mCellHeight) + paddingTop);
 
 					// draw read-only field background
-					if (!cell.isEditable() && hasBackgroundColorReadOnly) {
+					boolean editable = mCells.isEditable(index);
+					if (!editable && hasBackgroundColorReadOnly) {
 						if (mBackgroundColorReadOnly.getColor() != NO_COLOR) {
 							canvas.drawRect(
 									cellLeft, cellTop,
@@ -634,11 +675,13 @@ public class SudokuBoardView extends View {
 					}
 
 					// draw cell Text
-					int value = cell.getValue();
+					int value = mCells.getValue(index);
 					if (value != 0) {
-						Paint cellValuePaint = cell.isEditable() ? mCellValuePaint : mCellValueReadonlyPaint;
+						Paint cellValuePaint = editable ? mCellValuePaint : mCellValueReadonlyPaint;
 
-						if (mHighlightWrongVals && !cell.isValid()) {
+						if (mHighlightWrongVals && !mCells.isValid(index)) {
+							cellValuePaint = mCellValueInvalidPaint;
+						} else if (mCheckAgainstSolution && editable && mGame != null && mGame.isWrong(index)) {
 							cellValuePaint = mCellValueInvalidPaint;
 						}
 						canvas.drawText(Integer.toString(value),
@@ -646,12 +689,15 @@ public class SudokuBoardView extends View {
 								cellTop + mNumberTop - numberAscent,
 								cellValuePaint);
 					} else {
-						if (!cell.getNote().isEmpty()) {
-							Collection<Integer> numbers = cell.getNote().getNotedNumbers();
-							for (Integer number : numbers) {
+						CellNote note = mCells.getNote(index);
+						if (!note.isEmpty()) {
+							for (int number = 1; number <= size; number++) {
+								if (!note.hasNumber(number)) {
+									continue;
+								}
 								int n = number - 1;
-								int c = n % 3;
-								int r = n / 3;
+								int c = n % noteColumns;
+								int r = n / noteColumns;
 								//canvas.drawText(Integer.toString(number), cellLeft + c*noteWidth + 2, cellTop + noteAscent + r*noteWidth - 1, mNotePaint);
 								canvas.drawText(Integer.toString(number), cellLeft + c * noteWidth + 2, cellTop + mNoteTop - noteAscent + r * noteWidth - 1, mCellNotePaint);
 							}
@@ -687,13 +733,13 @@ public class SudokuBoardView extends View {
 		}
 
 		// draw vertical lines
-		for (int c = 0; c <= 9; c++) {
+		for (int c = 0; c <= size; c++) {
 			float x = (c * mCellWidth) + paddingLeft;
 			canvas.drawLine(x, paddingTop, x, height, mLinePaint);
 		}
 
 		// draw horizontal lines
-		for (int r = 0; r <= 9; r++) {
+		for (int r = 0; r <= size; r++) {
 			float y = r * mCellHeight + paddingTop;
 			canvas.drawLine(paddingLeft, y, width, y, mLinePaint);
 		}
@@ -702,12 +748,12 @@ public class SudokuBoardView extends View {
 		int sectorLineWidth2 = sectorLineWidth1 + (mSectorLineWidth % 2);
 
 		// draw sector (thick) lines
-		for (int c = 0; c <= 9; c = c + 3) {
+		for (int c = 0; c <= size; c = c + sectorWidth) {
 			float x = (c * mCellWidth) + paddingLeft;
 			canvas.drawRect(x - sectorLineWidth1, paddingTop, x + sectorLineWidth2, height, mSectorLinePaint);
 		}
 
-		for (int r = 0; r <= 9; r = r + 3) {
+		for (int r = 0; r <= size; r = r + sectorHeight) {
 			float y = r * mCellHeight + paddingTop;
 			canvas.drawRect(paddingLeft, y - sectorLineWidth1, width, y + sectorLineWidth2, mSectorLinePaint);
 		}
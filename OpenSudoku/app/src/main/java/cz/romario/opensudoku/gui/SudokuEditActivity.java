@@ -32,13 +32,21 @@ import android.view.MenuItem;
 import android.view.ViewGroup;
 import android.view.Window;
 import android.view.WindowManager;
+import android.widget.TextView;
 import android.widget.Toast;
 
+import java.util.BitSet;
+
 import cz.romario.opensudoku.R;
 import cz.romario.opensudoku.db.SudokuDatabase;
+import cz.romario.opensudoku.game.CellCollection;
+import cz.romario.opensudoku.game.CellCollection.OnChangeListener;
+import cz.romario.opensudoku.game.PuzzleSolution;
 import cz.romario.opensudoku.game.SudokuGame;
+import cz.romario.opensudoku.game.UniquenessChecker;
 import cz.romario.opensudoku.gui.inputmethod.IMControlPanel;
 import cz.romario.opensudoku.gui.inputmethod.InputMethod;
+import cz.romario.opensudoku.utils.AndroidStateBundle;
 import cz.romario.opensudoku.utils.AndroidUtils;
 
 /**
@@ -73,7 +81,9 @@ public class SudokuEditActivity extends Activity {
 	private ViewGroup mRootLayout;
 	private SudokuBoardView mBoard;
 	private IMControlPanel mInputMethods;
+	private TextView mSolutionCount;
 	private Handler mGuiHandler;
+	private UniquenessChecker mUniquenessChecker;
 
 	private boolean mFullScreen;
 
@@ -132,7 +142,7 @@ public class SudokuEditActivity extends Activity {
 
 		if (savedInstanceState != null) {
 			mGame = new SudokuGame();
-			mGame.restoreState(savedInstanceState);
+			mGame.restoreState(new AndroidStateBundle(savedInstanceState));
 		} else {
 			if (mSudokuID != 0) {
 				// existing sudoku, read it from database
@@ -144,6 +154,28 @@ public class SudokuEditActivity extends Activity {
 		}
 		mBoard.setGame(mGame);
 
+		// tell the author live whether the puzzle has unique solution
+		mSolutionCount = (TextView) findViewById(R.id.solution_count);
+		final CellCollection cells = mGame.getCells();
+		mUniquenessChecker = new UniquenessChecker(cells.getGeometry(), new UniquenessChecker.Listener() {
+			@Override
+			public void onSolutionCountChecked(final int solutionCount) {
+				mGuiHandler.post(new Runnable() {
+					@Override
+					public void run() {
+						showSolutionCount(solutionCount);
+					}
+				});
+			}
+		});
+		mUniquenessChecker.update(cells.snapshot());
+		cells.addOnChangeListener(new OnChangeListener() {
+			@Override
+			public void onChange(BitSet changedCells) {
+				mUniquenessChecker.update(cells.snapshot());
+			}
+		});
+
 		mInputMethods = (IMControlPanel) findViewById(R.id.input_methods);
 		mInputMethods.initialize(mBoard, mGame, null);
 
@@ -188,6 +220,9 @@ public class SudokuEditActivity extends Activity {
 	@Override
 	protected void onDestroy() {
 		super.onDestroy();
+		if (mUniquenessChecker != null) {
+			mUniquenessChecker.shutdown();
+		}
 		mDatabase.close();
 	}
 
@@ -195,7 +230,7 @@ public class SudokuEditActivity extends Activity {
 	protected void onSaveInstanceState(Bundle outState) {
 		super.onSaveInstanceState(outState);
 
-		mGame.saveState(outState);
+		mGame.saveState(new AndroidStateBundle(outState));
 	}
 
 	@Override
@@ -236,12 +271,27 @@ public class SudokuEditActivity extends Activity {
 		return super.onOptionsItemSelected(item);
 	}
 
+	private void showSolutionCount(int solutionCount) {
+		switch (solutionCount) {
+			case 0:
+				mSolutionCount.setText(R.string.no_solution);
+				break;
+			case 1:
+				mSolutionCount.setText(R.string.unique_solution);
+				break;
+			case PuzzleSolution.MULTIPLE:
+				mSolutionCount.setText(R.string.multiple_solutions);
+				break;
+		}
+	}
+
 	private void savePuzzle() {
 		mGame.getCells().markFilledCellsAsNotEditable();
 
 		switch (mState) {
 			case STATE_EDIT:
 				mDatabase.updateSudoku(mGame);
+				mDatabase.updateGivens(mGame.getId());
 				Toast.makeText(getApplicationContext(), R.string.puzzle_updated, Toast.LENGTH_SHORT).show();
 				break;
 			case STATE_INSERT:
@@ -250,5 +300,6 @@ public class SudokuEditActivity extends Activity {
 				Toast.makeText(getApplicationContext(), R.string.puzzle_inserted, Toast.LENGTH_SHORT).show();
 				break;
 		}
+		new SudokuSolutionTask(getApplicationContext()).execute();
 	}
 }
@@ -7,11 +7,14 @@ import android.os.Bundle;
 import android.util.Log;
 import android.view.Window;
 import android.widget.ProgressBar;
+import android.widget.TextView;
 
 import cz.romario.opensudoku.R;
+import cz.romario.opensudoku.game.Difficulty;
 import cz.romario.opensudoku.gui.importing.AbstractImportTask;
 import cz.romario.opensudoku.gui.importing.AbstractImportTask.OnImportFinishedListener;
 import cz.romario.opensudoku.gui.importing.ExtrasImportTask;
+import cz.romario.opensudoku.gui.importing.GeneratorImportTask;
 import cz.romario.opensudoku.gui.importing.OpenSudokuImportTask;
 import cz.romario.opensudoku.gui.importing.SdmImportTask;
 import cz.romario.opensudoku.utils.Const;
@@ -37,8 +40,20 @@ public class SudokuImportActivity extends Activity {
 	 * 120001232...0041\n 456000213...1100\n
 	 */
 	public static final String EXTRA_GAMES = "GAMES";
+	/**
+	 * Name of {@link Difficulty} of puzzles to generate into new folder named
+	 * {@link #EXTRA_FOLDER_NAME}.
+	 */
+	public static final String EXTRA_GENERATE_DIFFICULTY = "GENERATE_DIFFICULTY";
+	/**
+	 * Number of puzzles to generate.
+	 */
+	public static final String EXTRA_GENERATE_COUNT = "GENERATE_COUNT";
+
+	private static final int DEFAULT_GENERATE_COUNT = 20;
 
 	private static final String TAG = "ImportSudokuActivity";
+	private AbstractImportTask mImportTask;
 	private OnImportFinishedListener mOnImportFinishedListener = new OnImportFinishedListener() {
 
 		@Override
@@ -97,6 +112,14 @@ public class SudokuImportActivity extends Activity {
 				return;
 
 			}
+		} else if (intent.getStringExtra(EXTRA_GENERATE_DIFFICULTY) != null) {
+
+			String folderName = intent.getStringExtra(EXTRA_FOLDER_NAME);
+			Difficulty difficulty = Difficulty.valueOf(intent.getStringExtra(EXTRA_GENERATE_DIFFICULTY));
+			int count = intent.getIntExtra(EXTRA_GENERATE_COUNT, DEFAULT_GENERATE_COUNT);
+			importTask = new GeneratorImportTask(folderName, difficulty, count);
+			((TextView) findViewById(R.id.message)).setText(R.string.generating);
+
 		} else if (intent.getStringExtra(EXTRA_FOLDER_NAME) != null) {
 
 			String folderName = intent.getStringExtra(EXTRA_FOLDER_NAME);
@@ -115,6 +138,15 @@ public class SudokuImportActivity extends Activity {
 		importTask.setOnImportFinishedListener(mOnImportFinishedListener);
 
 		importTask.execute();
+		mImportTask = importTask;
+	}
+
+	@Override
+	public void onBackPressed() {
+		if (mImportTask != null) {
+			mImportTask.cancelImport();
+		}
+		super.onBackPressed();
 	}
 
 }
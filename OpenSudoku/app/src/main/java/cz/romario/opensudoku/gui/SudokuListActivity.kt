@@ -42,6 +42,7 @@ import android.widget.TextView
 import cz.romario.opensudoku.R
 import cz.romario.opensudoku.db.SudokuColumns
 import cz.romario.opensudoku.db.SudokuDatabase
+import cz.romario.opensudoku.game.Difficulty
 
 /**
  * List of puzzles in folder.
@@ -113,6 +114,12 @@ class SudokuListActivity : AppCompatActivity() {
         return true
     }
 
+    override fun onPrepareOptionsMenu(menu: Menu): Boolean {
+        super.onPrepareOptionsMenu(menu)
+        menu.findItem(SudokuListMenuCreator.MENU_ITEM_SORT_DIFFICULTY).isChecked = mListFilter!!.sortByDifficulty
+        return true
+    }
+
     override fun onCreateContextMenu(menu: ContextMenu, view: View,
                                      menuInfo: ContextMenuInfo) {
         val info: AdapterView.AdapterContextMenuInfo
@@ -142,7 +149,13 @@ class SudokuListActivity : AppCompatActivity() {
         return SudokuListContextMenuHandler(info, item.itemId).invoke()
     }
 
-    override fun onOptionsItemSelected(item: MenuItem) = SudokuListMenuHandler(mFolderID, this).handleMenuSelection(item.itemId, this::showDialog, this::startActivity) || super.onOptionsItemSelected(item)
+    override fun onOptionsItemSelected(item: MenuItem) = SudokuListMenuHandler(mFolderID, this).handleMenuSelection(item.itemId, this::showDialog, this::startActivity, this::toggleSortByDifficulty) || super.onOptionsItemSelected(item)
+
+    private fun toggleSortByDifficulty() {
+        mListFilter!!.sortByDifficulty = !mListFilter!!.sortByDifficulty
+        SharedPreferencesSudokuFilterPersister(PreferenceManager.getDefaultSharedPreferences(applicationContext)).invoke(mListFilter)
+        updateList()
+    }
 
     /**
      * Updates whole list.
@@ -161,7 +174,7 @@ class SudokuListActivity : AppCompatActivity() {
 
     private fun updateFilterStatus() {
 
-        if (mListFilter!!.showStateCompleted && mListFilter!!.showStateNotStarted && mListFilter!!.showStatePlaying) {
+        if (!mListFilter!!.isActive) {
             mFilterStatus!!.visibility = View.GONE
         } else {
             mFilterStatus!!.text = getString(R.string.filter_active, mListFilter)
@@ -301,6 +314,20 @@ class SudokuListActivity : AppCompatActivity() {
                         updateList()
                     }
                     .setNegativeButton(android.R.string.cancel, null).create()
+            DIALOG_FILTER_DIFFICULTY -> {
+                val items = arrayOf(getString(R.string.any_difficulty)) + resources.getStringArray(R.array.difficulties)
+                val difficulty = mListFilter!!.difficulty
+                return AlertDialog.Builder(this)
+                        .setIcon(android.R.drawable.ic_menu_view)
+                        .setTitle(R.string.filter_by_difficulty)
+                        .setSingleChoiceItems(items, if (difficulty == null) 0 else difficulty.ordinal + 1) { dialog, which ->
+                            mListFilter!!.difficulty = if (which == 0) null else Difficulty.values()[which - 1]
+                            SharedPreferencesSudokuFilterPersister(settings).invoke(mListFilter)
+                            updateList()
+                            dialog.dismiss()
+                        }
+                        .setNegativeButton(android.R.string.cancel, null).create()
+            }
         }
         return null
     }
@@ -329,6 +356,7 @@ class SudokuListActivity : AppCompatActivity() {
         private val DIALOG_RESET_PUZZLE = 1
         private val DIALOG_EDIT_NOTE = 2
         private val DIALOG_FILTER = 3
+        private val DIALOG_FILTER_DIFFICULTY = 4
 
         private val TAG = "SudokuListActivity"
     }
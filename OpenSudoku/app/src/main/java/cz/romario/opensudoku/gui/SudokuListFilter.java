@@ -26,6 +26,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import cz.romario.opensudoku.R;
+import cz.romario.opensudoku.game.Difficulty;
 import cz.romario.opensudoku.utils.StringUtils;
 
 public class SudokuListFilter {
@@ -33,16 +34,30 @@ public class SudokuListFilter {
 	public boolean showStateNotStarted = true;
 	public boolean showStatePlaying = true;
 	public boolean showStateCompleted = true;
+	/**
+	 * Difficulty of shown puzzles, null to show puzzles of any difficulty.
+	 */
+	public Difficulty difficulty = null;
+	public boolean sortByDifficulty = false;
     private String notStartedLabel;
     private String playingLabel;
     private String solvedLabel;
+    private String[] difficultyLabels;
 
 	public SudokuListFilter(Context context) {
         notStartedLabel = context.getString(R.string.not_started);
         playingLabel = context.getString(R.string.playing);
         solvedLabel = context.getString(R.string.solved);
+        difficultyLabels = context.getResources().getStringArray(R.array.difficulties);
     }
 
+	/**
+	 * Returns true if some puzzles are hidden by this filter.
+	 */
+	public boolean isActive() {
+		return !showStateNotStarted || !showStatePlaying || !showStateCompleted || difficulty != null;
+	}
+
 	@Override
 	public String toString() {
         List<String> visibleStates = new ArrayList<>();
@@ -55,6 +70,9 @@ public class SudokuListFilter {
 		if (showStateCompleted) {
             visibleStates.add(solvedLabel);
         }
+		if (difficulty != null) {
+			visibleStates.add(difficultyLabels[difficulty.ordinal()]);
+		}
 		return StringUtils.join(visibleStates, ",");
 	}
 }
@@ -10,11 +10,15 @@ internal class SudokuListMenuCreator(private val menu: Menu) {
         menu.add(0, MENU_ITEM_FOLDERS, 0, R.string.folders).setShortcut('1', 'f').setIcon(android.R.drawable.ic_menu_sort_by_size)
         menu.add(0, MENU_ITEM_FILTER, 1, R.string.filter).setShortcut('1', 'f').setIcon(android.R.drawable.ic_menu_view)
         menu.add(0, MENU_ITEM_INSERT, 2, R.string.add_sudoku).setShortcut('3', 'a').setIcon(android.R.drawable.ic_menu_add)
+        menu.add(0, MENU_ITEM_FILTER_DIFFICULTY, 3, R.string.filter_by_difficulty).setIcon(android.R.drawable.ic_menu_view)
+        menu.add(0, MENU_ITEM_SORT_DIFFICULTY, 4, R.string.sort_by_difficulty).setCheckable(true)
     }
 
     companion object {
         private val MENU_ITEM_INSERT = Menu.FIRST
         private val MENU_ITEM_FILTER = Menu.FIRST + 6
         private val MENU_ITEM_FOLDERS = Menu.FIRST + 7
+        val MENU_ITEM_FILTER_DIFFICULTY = Menu.FIRST + 8
+        val MENU_ITEM_SORT_DIFFICULTY = Menu.FIRST + 9
     }
 }
@@ -6,7 +6,7 @@ import android.view.Menu
 
 class SudokuListMenuHandler(private val mFolderID: Long, private val activity: Activity) {
 
-    fun handleMenuSelection(menuItemId: Int, showDialog: (Int) -> Unit, launchIntent: (Intent) -> Unit): Boolean {
+    fun handleMenuSelection(menuItemId: Int, showDialog: (Int) -> Unit, launchIntent: (Intent) -> Unit, toggleSortByDifficulty: () -> Unit): Boolean {
         when (menuItemId) {
             MENU_ITEM_INSERT -> {
                 // Launch activity to insert a new item
@@ -20,6 +20,14 @@ class SudokuListMenuHandler(private val mFolderID: Long, private val activity: A
                 showDialog(DIALOG_FILTER)
                 return true
             }
+            SudokuListMenuCreator.MENU_ITEM_FILTER_DIFFICULTY -> {
+                showDialog(DIALOG_FILTER_DIFFICULTY)
+                return true
+            }
+            SudokuListMenuCreator.MENU_ITEM_SORT_DIFFICULTY -> {
+                toggleSortByDifficulty()
+                return true
+            }
             MENU_ITEM_FOLDERS -> {
                 launchIntent(Intent(activity, FolderListActivity::class.java))
                 activity.finish()
@@ -34,5 +42,6 @@ class SudokuListMenuHandler(private val mFolderID: Long, private val activity: A
         private val MENU_ITEM_FILTER = Menu.FIRST + 6
         private val MENU_ITEM_FOLDERS = Menu.FIRST + 7
         private val DIALOG_FILTER = 3
+        private val DIALOG_FILTER_DIFFICULTY = 4
     }
 }
\ No newline at end of file
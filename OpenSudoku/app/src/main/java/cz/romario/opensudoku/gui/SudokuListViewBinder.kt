@@ -8,7 +8,7 @@ import android.widget.TextView
 
 import cz.romario.opensudoku.R
 import cz.romario.opensudoku.db.SudokuColumns
-import cz.romario.opensudoku.game.CellCollection
+import cz.romario.opensudoku.db.SudokuDatabase
 import cz.romario.opensudoku.game.SudokuGame
 
 internal class SudokuListViewBinder : SimpleCursorAdapter.ViewBinder {
@@ -20,14 +20,12 @@ internal class SudokuListViewBinder : SimpleCursorAdapter.ViewBinder {
         val label: TextView
         when (view.id) {
             R.id.sudoku_board -> {
-                val data = c.getString(columnIndex)
-
                 val board = view as SudokuBoardView
                 board.isReadOnly = true
                 board.isFocusable = false
 
                 try {
-                    view.cells = CellCollection.deserialize(data)
+                    view.cells = SudokuDatabase.getCells(c, columnIndex)
                 } catch (ignored: Exception) {
                 }
 
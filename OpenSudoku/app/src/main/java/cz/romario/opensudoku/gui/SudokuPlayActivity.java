@@ -33,13 +33,20 @@ import android.view.Menu;
 import android.view.MenuItem;
 import android.view.ViewGroup;
 
+import java.util.BitSet;
+
 import cz.romario.opensudoku.R;
 import cz.romario.opensudoku.db.SudokuDatabase;
+import cz.romario.opensudoku.game.CellCollection;
+import cz.romario.opensudoku.game.CellCollection.OnChangeListener;
+import cz.romario.opensudoku.game.Hint;
+import cz.romario.opensudoku.game.HintFinder;
 import cz.romario.opensudoku.game.SudokuGame;
 import cz.romario.opensudoku.game.SudokuGame.OnPuzzleSolvedListener;
 import cz.romario.opensudoku.gui.inputmethod.IMControlPanel;
 import cz.romario.opensudoku.gui.inputmethod.IMControlPanelStatePersister;
 import cz.romario.opensudoku.gui.inputmethod.IMNumpad;
+import cz.romario.opensudoku.utils.AndroidStateBundle;
 
 public class SudokuPlayActivity extends AppCompatActivity {
 
@@ -65,6 +72,7 @@ public class SudokuPlayActivity extends AppCompatActivity {
     public static final int MENU_ITEM_SETTINGS = Menu.FIRST + 5;
     public static final int MENU_ITEM_SET_CHECKPOINT = Menu.FIRST + 6;
     public static final int MENU_ITEM_UNDO_TO_CHECKPOINT = Menu.FIRST + 7;
+    public static final int MENU_ITEM_HINT = Menu.FIRST + 8;
     private static final int DIALOG_RESTART = 1;
     private static final int DIALOG_WELL_DONE = 2;
     private static final int DIALOG_CLEAR_NOTES = 3;
@@ -83,6 +91,7 @@ public class SudokuPlayActivity extends AppCompatActivity {
     private GameTimeFormat mGameTimeFormatter = new GameTimeFormat();
     private boolean mFillInNotesEnabled = false;
     private HintsQueue mHintsQueue;
+    private HintFinder mHintFinder;
     /**
      * Occurs when puzzle is solved.
      */
@@ -117,7 +126,7 @@ public class SudokuPlayActivity extends AppCompatActivity {
         } else {
             // activity has been running before, restore its state
             mSudokuGame = new SudokuGame();
-            mSudokuGame.restoreState(savedInstanceState);
+            mSudokuGame.restoreState(new AndroidStateBundle(savedInstanceState));
             mGameTimer.restoreState(savedInstanceState);
         }
 
@@ -134,6 +143,17 @@ public class SudokuPlayActivity extends AppCompatActivity {
         mSudokuBoard.setGame(mSudokuGame);
         mSudokuGame.setOnPuzzleSolvedListener(onSolvedListener);
 
+        // next step is looked up in background after each move, so hint is ready when asked for
+        final CellCollection cells = mSudokuGame.getCells();
+        mHintFinder = new HintFinder(cells.getGeometry());
+        mHintFinder.update(cells.snapshot());
+        cells.addOnChangeListener(new OnChangeListener() {
+            @Override
+            public void onChange(BitSet changedCells) {
+                mHintFinder.update(cells.snapshot());
+            }
+        });
+
         mHintsQueue.showOneTimeHint("welcome", R.string.welcome, R.string.first_run_hint);
 
         mIMControlPanel = (IMControlPanel) findViewById(R.id.input_methods);
@@ -165,6 +185,10 @@ public class SudokuPlayActivity extends AppCompatActivity {
                     .setIcon(android.R.drawable.ic_menu_edit);
         }
 
+        menu.add(0, MENU_ITEM_HINT, 0, R.string.hint)
+                .setShortcut('5', 'i')
+                .setIcon(android.R.drawable.ic_menu_info_details);
+
         menu.add(0, MENU_ITEM_HELP, 1, R.string.help)
                 .setShortcut('0', 'h')
                 .setIcon(android.R.drawable.ic_menu_help);
@@ -194,6 +218,7 @@ public class SudokuPlayActivity extends AppCompatActivity {
 
         if (mSudokuGame.getState() == SudokuGame.GAME_STATE_PLAYING) {
             menu.findItem(MENU_ITEM_CLEAR_ALL_NOTES).setEnabled(true);
+            menu.findItem(MENU_ITEM_HINT).setEnabled(true);
             if (mFillInNotesEnabled) {
                 menu.findItem(MENU_ITEM_FILL_IN_NOTES).setEnabled(true);
             }
@@ -201,6 +226,7 @@ public class SudokuPlayActivity extends AppCompatActivity {
             menu.findItem(MENU_ITEM_UNDO_TO_CHECKPOINT).setEnabled(mSudokuGame.hasUndoCheckpoint());
         } else {
             menu.findItem(MENU_ITEM_CLEAR_ALL_NOTES).setEnabled(false);
+            menu.findItem(MENU_ITEM_HINT).setEnabled(false);
             if (mFillInNotesEnabled) {
                 menu.findItem(MENU_ITEM_FILL_IN_NOTES).setEnabled(false);
             }
@@ -231,6 +257,9 @@ public class SudokuPlayActivity extends AppCompatActivity {
                 i.setClass(this, GameSettingsActivity.class);
                 startActivityForResult(i, REQUEST_SETTINGS);
                 return true;
+            case MENU_ITEM_HINT:
+                showNextHint();
+                return true;
             case MENU_ITEM_HELP:
                 mHintsQueue.showHint(R.string.help, R.string.help_text);
                 return true;
@@ -244,6 +273,57 @@ public class SudokuPlayActivity extends AppCompatActivity {
         return super.onOptionsItemSelected(item);
     }
 
+    private void showNextHint() {
+        CellCollection cells = mSudokuGame.getCells();
+        // step found on a board with mistakes would lead nowhere, point them out instead
+        for (int i = 0; i < cells.getCellCount(); i++) {
+            if (mSudokuGame.isWrong(i)) {
+                mHintsQueue.showHint(R.string.hint, R.string.hint_mistake);
+                return;
+            }
+        }
+
+        // hint is usually ready, otherwise it is shown once the background search finishes
+        mHintFinder.requestHint(cells.snapshot(), new HintFinder.OnHintListener() {
+            @Override
+            public void onHint(final Hint hint) {
+                runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!isFinishing()) {
+                            showHint(hint);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void showHint(Hint hint) {
+        if (hint == null) {
+            mHintsQueue.showHint(R.string.hint, R.string.hint_no_step);
+            return;
+        }
+
+        int size = mSudokuGame.getCells().getSize();
+        String technique = getResources().getStringArray(R.array.techniques)[hint.getTechnique().ordinal()];
+        if (hint.isPlacement()) {
+            int cell = hint.getCells()[0];
+            mHintsQueue.showHint(R.string.hint, getString(R.string.hint_placement,
+                    technique, hint.getValue(), cell / size + 1, cell % size + 1));
+        } else {
+            StringBuilder pattern = new StringBuilder();
+            for (int cell : hint.getCells()) {
+                if (pattern.length() > 0) {
+                    pattern.append(", ");
+                }
+                pattern.append(getString(R.string.hint_cell, cell / size + 1, cell % size + 1));
+            }
+            mHintsQueue.showHint(R.string.hint, getString(R.string.hint_elimination,
+                    technique, pattern, hint.getEliminationCells().length));
+        }
+    }
+
     private void showCompletionDialog() {
         showDialog(DIALOG_WELL_DONE);
     }
@@ -281,6 +361,7 @@ public class SudokuPlayActivity extends AppCompatActivity {
         mFillInNotesEnabled = gameSettings.getBoolean("fill_in_notes_enabled", false);
 
         mSudokuBoard.setHighlightWrongVals(gameSettings.getBoolean("highlight_wrong_values", true));
+        mSudokuBoard.setCheckAgainstSolution(gameSettings.getBoolean("check_against_solution", false));
         mSudokuBoard.setHighlightTouchedCell(gameSettings.getBoolean("highlight_touched_cell", true));
 
         mShowTime = gameSettings.getBoolean("show_time", true);
@@ -307,8 +388,9 @@ public class SudokuPlayActivity extends AppCompatActivity {
     protected void onPause() {
         super.onPause();
 
-        // we will save game to the database as we might not be able to get back
-        mDatabase.updateSudoku(mSudokuGame);
+        // we will save game to the database as we might not be able to get back; when leaving
+        // the game, whole board is written, so that puzzle list shows it up to date
+        mDatabase.updateSudoku(mSudokuGame, isFinishing());
 
         mGameTimer.stop();
         mIMControlPanel.pause();
@@ -319,6 +401,7 @@ public class SudokuPlayActivity extends AppCompatActivity {
     protected void onDestroy() {
         super.onDestroy();
 
+        mHintFinder.shutdown();
         mDatabase.close();
     }
 
@@ -332,7 +415,7 @@ public class SudokuPlayActivity extends AppCompatActivity {
             mSudokuGame.pause();
         }
 
-        mSudokuGame.saveState(outState);
+        mSudokuGame.saveState(new AndroidStateBundle(outState));
         mGameTimer.saveState(outState);
     }
 
@@ -0,0 +1,72 @@
+package cz.romario.opensudoku.gui;
+
+import android.app.ProgressDialog;
+import android.content.Context;
+import android.content.DialogInterface;
+import android.os.AsyncTask;
+import android.widget.Toast;
+
+import cz.romario.opensudoku.R;
+import cz.romario.opensudoku.db.SudokuDatabase;
+import cz.romario.opensudoku.db.SudokuRatingJob;
+
+/**
+ * Rates difficulty of puzzles in background, see {@link SudokuRatingJob}. Progress is shown
+ * in dialog, cancelling the dialog stops rating (already rated puzzles keep their difficulty).
+ */
+public class SudokuRatingTask extends AsyncTask<Void, Integer, Integer> {
+
+	private Context mContext;
+	private ProgressDialog mProgressDialog;
+	private SudokuRatingJob mJob;
+
+	/**
+	 * @param folderID Id of folder to rate, -1 for all folders.
+	 */
+	public SudokuRatingTask(Context context, long folderID) {
+		mContext = context;
+		mJob = new SudokuRatingJob(new SudokuDatabase(context.getApplicationContext()), folderID);
+	}
+
+	@Override
+	protected void onPreExecute() {
+		mProgressDialog = new ProgressDialog(mContext);
+		mProgressDialog.setProgressStyle(ProgressDialog.STYLE_HORIZONTAL);
+		mProgressDialog.setTitle(R.string.app_name);
+		mProgressDialog.setMessage(mContext.getString(R.string.rating_puzzles));
+		mProgressDialog.setCancelable(true);
+		mProgressDialog.setOnCancelListener(new DialogInterface.OnCancelListener() {
+			@Override
+			public void onCancel(DialogInterface dialog) {
+				mJob.cancel();
+			}
+		});
+		mProgressDialog.show();
+	}
+
+	@Override
+	protected Integer doInBackground(Void... params) {
+		return mJob.run(new SudokuRatingJob.OnProgressListener() {
+			@Override
+			public void onProgress(int ratedCount, int totalCount) {
+				publishProgress(ratedCount, totalCount);
+			}
+		});
+	}
+
+	@Override
+	protected void onProgressUpdate(Integer... values) {
+		mProgressDialog.setMax(values[1]);
+		mProgressDialog.setProgress(values[0]);
+	}
+
+	@Override
+	protected void onPostExecute(Integer ratedCount) {
+		if (mProgressDialog.isShowing()) {
+			mProgressDialog.dismiss();
+		}
+		Toast.makeText(mContext, mContext.getString(R.string.puzzles_rated, ratedCount),
+				Toast.LENGTH_LONG).show();
+	}
+
+}
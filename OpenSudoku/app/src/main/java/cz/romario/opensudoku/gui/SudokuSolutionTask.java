@@ -0,0 +1,36 @@
+package cz.romario.opensudoku.gui;
+
+import android.content.Context;
+import android.os.AsyncTask;
+
+import cz.romario.opensudoku.db.SudokuDatabase;
+
+/**
+ * Finds and stores solutions of puzzles which have none yet (their givens have been edited,
+ * or they come from older version of database), see
+ * {@link SudokuDatabase#computeMissingSolutions()}. Before that, it compacts changes logged by
+ * games which were not left properly and converts puzzles still stored in text form to binary
+ * form, see {@link SudokuDatabase#migrateDataToBinary()}. Runs without any UI, puzzle just has
+ * no known solution until the task is done.
+ */
+public class SudokuSolutionTask extends AsyncTask<Void, Void, Void> {
+
+	private SudokuDatabase mDatabase;
+
+	public SudokuSolutionTask(Context context) {
+		mDatabase = new SudokuDatabase(context.getApplicationContext());
+	}
+
+	@Override
+	protected Void doInBackground(Void... params) {
+		try {
+			mDatabase.compactChanges();
+			mDatabase.migrateDataToBinary();
+			mDatabase.computeMissingSolutions();
+		} finally {
+			mDatabase.close();
+		}
+		return null;
+	}
+
+}
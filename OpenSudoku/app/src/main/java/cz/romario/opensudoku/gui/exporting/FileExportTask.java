@@ -17,6 +17,7 @@ import java.io.Writer;
 
 import cz.romario.opensudoku.db.SudokuColumns;
 import cz.romario.opensudoku.db.SudokuDatabase;
+import cz.romario.opensudoku.game.CellCollection;
 import cz.romario.opensudoku.utils.Const;
 
 /**
@@ -92,6 +93,8 @@ public class FileExportTask extends AsyncTask<FileExportTaskParams, Integer, Voi
 			result.file = par.file;
 
 			database = new SudokuDatabase(mContext);
+			// exported boards are read from data column, so it has to be up to date
+			database.compactChanges();
 
 			boolean generateFolders = true;
 			if (par.folderID != null) {
@@ -109,6 +112,8 @@ public class FileExportTask extends AsyncTask<FileExportTaskParams, Integer, Voi
 			serializer.startTag("", "opensudoku");
 			serializer.attribute("", "version", "2");
 
+			// reused for text form of all exported puzzles
+			StringBuilder data = new StringBuilder();
 			long currentFolderId = -1;
 			while (cursor.moveToNext()) {
 				if (generateFolders && currentFolderId != cursor.getLong(cursor.getColumnIndex("folder_id"))) {
@@ -122,14 +127,17 @@ public class FileExportTask extends AsyncTask<FileExportTaskParams, Integer, Voi
 					attribute(serializer, "created", cursor, "folder_created");
                 }
 
-                String data = cursor.getString(cursor.getColumnIndex(SudokuColumns.DATA));
-                if (data != null) {
+                // puzzles are stored in binary form, files always get text form
+                CellCollection cells = SudokuDatabase.getCells(cursor, cursor.getColumnIndex(SudokuColumns.DATA));
+                if (cells != null) {
 					serializer.startTag("", "game");
                     attribute(serializer, "created", cursor, SudokuColumns.CREATED);
                     attribute(serializer, "state", cursor, SudokuColumns.STATE);
                     attribute(serializer, "time", cursor, SudokuColumns.TIME);
                     attribute(serializer, "last_played", cursor, SudokuColumns.LAST_PLAYED);
-                    attribute(serializer, "data", cursor, SudokuColumns.DATA);
+                    data.setLength(0);
+                    cells.serialize(data);
+                    serializer.attribute("", "data", data.toString());
                     attribute(serializer, "note", cursor, SudokuColumns.PUZZLE_NOTE);
                     serializer.endTag("", "game");
 				}
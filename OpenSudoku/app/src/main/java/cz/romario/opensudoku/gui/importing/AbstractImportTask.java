@@ -8,6 +8,7 @@ import android.widget.Toast;
 
 import cz.romario.opensudoku.R;
 import cz.romario.opensudoku.db.SudokuDatabase;
+import cz.romario.opensudoku.db.SudokuImportBatch;
 import cz.romario.opensudoku.db.SudokuImportParams;
 import cz.romario.opensudoku.db.SudokuInvalidFormatException;
 import cz.romario.opensudoku.game.FolderInfo;
@@ -48,6 +49,7 @@ public abstract class AbstractImportTask extends
 	private ProgressBar mProgressBar;
 	private OnImportFinishedListener mOnImportFinishedListener;
 	private SudokuDatabase mDatabase;
+	private SudokuImportBatch mImportBatch;
 	private FolderInfo mFolder; // currently processed folder
 	private int mFolderCount; // count of processed folders
 	private int mGameCount; //count of processed puzzles
@@ -116,16 +118,21 @@ public abstract class AbstractImportTask extends
 		long start = System.currentTimeMillis();
 
 		mDatabase = new SudokuDatabase(mContext);
+		mImportBatch = new SudokuImportBatch(mDatabase);
 		try {
 			mDatabase.beginTransaction();
 
 			// let subclass handle the import
 			processImport();
+			// puzzles are solved in background, insert the rest of them
+			mImportBatch.finish();
 
 			mDatabase.setTransactionSuccessful();
 		} catch (SudokuInvalidFormatException e) {
 			setError(mContext.getString(R.string.invalid_format));
 		} finally {
+			mImportBatch.close();
+			mImportBatch = null;
 			mDatabase.endTransaction();
 			mDatabase.close();
 			mDatabase = null;
@@ -221,9 +228,25 @@ public abstract class AbstractImportTask extends
 			throw new IllegalStateException("Database is not opened.");
         }
 
-        mDatabase.importSudoku(mFolder.getId(), pars);
+        mImportBatch.add(mFolder.getId(), pars);
     }
 
+	/**
+	 * Cancels the import. Unlike {@link #cancel(boolean)} it also lets subclass stop work
+	 * which does not check {@link #isCancelled()}, see {@link #onCancelImport()}.
+	 */
+	public void cancelImport() {
+		cancel(false);
+		onCancelImport();
+	}
+
+	/**
+	 * Called on the thread which cancelled the import, subclasses can stop their long running
+	 * work here.
+	 */
+	protected void onCancelImport() {
+	}
+
 	protected void setError(String error) {
 		mImportError = error;
 		mImportSuccessful = false;
@@ -0,0 +1,63 @@
+package cz.romario.opensudoku.gui.importing;
+
+import cz.romario.opensudoku.db.SudokuImportParams;
+import cz.romario.opensudoku.db.SudokuInvalidFormatException;
+import cz.romario.opensudoku.game.Difficulty;
+import cz.romario.opensudoku.game.PuzzleGenerator;
+
+/**
+ * Generates new puzzles of given difficulty and stores them in a new folder.
+ */
+public class GeneratorImportTask extends AbstractImportTask {
+
+	private String mFolderName;
+	private int mCount;
+	private PuzzleGenerator mGenerator;
+	private SudokuImportParams mImportParams = new SudokuImportParams();
+
+	public GeneratorImportTask(String folderName, Difficulty difficulty, int count) {
+		mFolderName = folderName;
+		mCount = count;
+		// created here, so that the import can be cancelled before it starts generating
+		mGenerator = new PuzzleGenerator(difficulty);
+	}
+
+	@Override
+	protected void processImport() throws SudokuInvalidFormatException {
+		importFolder(mFolderName);
+
+		final StringBuilder data = new StringBuilder();
+		mGenerator.generate(mCount, new PuzzleGenerator.Listener() {
+			@Override
+			public void onPuzzleGenerated(int[] values, int[] solution, Difficulty difficulty) {
+				data.setLength(0);
+				for (int value : values) {
+					data.append(value);
+				}
+				mImportParams.clear();
+				mImportParams.setData(data.toString());
+				// generator has checked the solution is unique, no need to solve puzzle again
+				mImportParams.setSolution(solution);
+				// and it has rated the puzzle, so it need not to be rated later
+				mImportParams.setDifficulty(difficulty);
+				try {
+					importGame(mImportParams);
+				} catch (SudokuInvalidFormatException e) {
+					// generated puzzles are always valid
+					throw new IllegalStateException(e);
+				}
+			}
+
+			@Override
+			public void onProgress(int generatedCount, int count) {
+				publishProgress(generatedCount, count);
+			}
+		});
+	}
+
+	@Override
+	protected void onCancelImport() {
+		mGenerator.cancel();
+	}
+
+}
@@ -21,20 +21,19 @@
 package cz.romario.opensudoku.gui.inputmethod;
 
 import android.content.Context;
-import android.util.SparseIntArray;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.View.OnClickListener;
+import android.view.ViewGroup;
 import android.widget.Button;
 import android.widget.ImageButton;
 
-import java.util.HashMap;
 import java.util.Map;
 
 import cz.romario.opensudoku.R;
 import cz.romario.opensudoku.game.Cell;
 import cz.romario.opensudoku.game.CellCollection;
-import cz.romario.opensudoku.game.CellCollection.OnChangeListener;
+import cz.romario.opensudoku.game.CellCollection.OnValueCountChangeListener;
 import cz.romario.opensudoku.game.CellNote;
 import cz.romario.opensudoku.game.SudokuGame;
 import cz.romario.opensudoku.gui.HintsQueue;
@@ -66,12 +65,12 @@ public class IMNumpad extends InputMethod {
                     case MODE_EDIT_NOTE:
                         if (selNumber == 0) {
                             mGame.setCellNote(selCell, CellNote.Companion.getEMPTY());
-                        } else if (selNumber > 0 && selNumber <= 9) {
+                        } else if (selNumber > 0 && selNumber <= mGame.getCells().getSize()) {
                             mGame.setCellNote(selCell, selCell.getNote().toggleNumber(selNumber));
                         }
                         break;
                     case MODE_EDIT_VALUE:
-                        if (selNumber >= 0 && selNumber <= 9) {
+                        if (selNumber >= 0 && selNumber <= mGame.getCells().getSize()) {
                             mGame.setCellValue(selCell, selNumber);
                             if (isMoveCellSelectionOnPress()) {
                                 mBoard.moveCellSelectionRight();
@@ -83,12 +82,12 @@ public class IMNumpad extends InputMethod {
         }
 
     };
-    private OnChangeListener mOnCellsChangeListener = new OnChangeListener() {
+    private OnValueCountChangeListener mOnValueCountChangeListener = new OnValueCountChangeListener() {
 
         @Override
-        public void onChange() {
+        public void onValueCountChange(int changedValues) {
             if (mActive) {
-                update();
+                updateNumberButtons(changedValues);
             }
         }
     };
@@ -128,7 +127,7 @@ public class IMNumpad extends InputMethod {
                               SudokuGame game, SudokuBoardView board, HintsQueue hintsQueue) {
         super.initialize(context, controlPanel, game, board, hintsQueue);
 
-        game.getCells().addOnChangeListener(mOnCellsChangeListener);
+        game.getCells().addOnValueCountChangeListener(mOnValueCountChangeListener);
     }
 
     @Override
@@ -136,16 +135,8 @@ public class IMNumpad extends InputMethod {
         LayoutInflater inflater = (LayoutInflater) mContext.getSystemService(Context.LAYOUT_INFLATER_SERVICE);
         View controlPanel = inflater.inflate(R.layout.im_numpad, null);
 
-        mNumberButtons = new HashMap<Integer, Button>();
-        mNumberButtons.put(1, (Button) controlPanel.findViewById(R.id.button_1));
-        mNumberButtons.put(2, (Button) controlPanel.findViewById(R.id.button_2));
-        mNumberButtons.put(3, (Button) controlPanel.findViewById(R.id.button_3));
-        mNumberButtons.put(4, (Button) controlPanel.findViewById(R.id.button_4));
-        mNumberButtons.put(5, (Button) controlPanel.findViewById(R.id.button_5));
-        mNumberButtons.put(6, (Button) controlPanel.findViewById(R.id.button_6));
-        mNumberButtons.put(7, (Button) controlPanel.findViewById(R.id.button_7));
-        mNumberButtons.put(8, (Button) controlPanel.findViewById(R.id.button_8));
-        mNumberButtons.put(9, (Button) controlPanel.findViewById(R.id.button_9));
+        mNumberButtons = NumberButtons.create(inflater, (ViewGroup) controlPanel.findViewById(R.id.number_buttons),
+                R.layout.im_number_button, mGame.getCells().getGeometry());
         mNumberButtons.put(0, (Button) controlPanel.findViewById(R.id.button_clear));
 
         for (Integer num : mNumberButtons.keySet()) {
@@ -206,27 +197,37 @@ public class IMNumpad extends InputMethod {
                 break;
         }
 
-        SparseIntArray valuesUseCount = new SparseIntArray();
-        if (mHighlightCompletedValues || mShowNumberTotals) {
-            valuesUseCount = mGame.getCells().getValuesUseCount();
+        updateNumberButtons(mGame.getCells().getAllValuesMask());
+    }
+
+    /**
+     * Updates completed highlight and totals of number buttons.
+     *
+     * @param changedValues Bit mask of values whose buttons should be updated.
+     */
+    private void updateNumberButtons(int changedValues) {
+        if (!mHighlightCompletedValues && !mShowNumberTotals) {
+            return;
         }
 
-        if (mHighlightCompletedValues) {
-            for (int i = 0; i < valuesUseCount.size(); i++) {
-                boolean highlightValue = valuesUseCount.valueAt(valuesUseCount.keyAt(i)) >= CellCollection.Companion.getSUDOKU_SIZE();
-                Button b = mNumberButtons.get(valuesUseCount.keyAt(i));
-                if (highlightValue) {
+        CellCollection cells = mGame.getCells();
+        for (int value = 1; value <= cells.getSize(); value++) {
+            if ((changedValues & (1 << (value - 1))) == 0) {
+                continue;
+            }
+
+            int count = cells.getValueCount(value);
+            Button b = mNumberButtons.get(value);
+            if (mHighlightCompletedValues) {
+                if (count >= cells.getSize()) {
                     b.setBackgroundResource(R.drawable.btn_completed_bg);
                 } else {
                     b.setBackgroundResource(R.drawable.btn_default_bg);
                 }
             }
-        }
 
-        if (mShowNumberTotals) {
-            for (int i = 0; i < valuesUseCount.size(); i++) {
-                Button b = mNumberButtons.get(i);
-                b.setText(valuesUseCount.keyAt(i) + " (" + valuesUseCount.valueAt(i) + ")");
+            if (mShowNumberTotals) {
+                b.setText(value + " (" + count + ")");
             }
         }
     }
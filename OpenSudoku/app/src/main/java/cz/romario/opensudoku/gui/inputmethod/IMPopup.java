@@ -23,7 +23,6 @@ package cz.romario.opensudoku.gui.inputmethod;
 import android.content.Context;
 import android.content.DialogInterface;
 import android.content.DialogInterface.OnDismissListener;
-import android.util.SparseIntArray;
 import android.view.LayoutInflater;
 import android.view.View;
 
@@ -100,7 +99,7 @@ public class IMPopup extends InputMethod {
 
 	private void ensureEditCellDialog() {
 		if (mEditCellDialog == null) {
-			mEditCellDialog = new IMPopupDialog(mContext);
+			mEditCellDialog = new IMPopupDialog(mContext, mGame.getCells().getGeometry());
 			mEditCellDialog.setOnNumberEditListener(mOnNumberEditListener);
 			mEditCellDialog.setOnNoteEditListener(mOnNoteEditListener);
 			mEditCellDialog.setOnDismissListener(mOnPopupDismissedListener);
@@ -128,21 +127,14 @@ public class IMPopup extends InputMethod {
 			mEditCellDialog.updateNumber(cell.getValue());
 			mEditCellDialog.updateNote(cell.getNote().getNotedNumbers());
 
-			SparseIntArray valuesUseCount = new SparseIntArray();
-			if (mHighlightCompletedValues || mShowNumberTotals)
-				valuesUseCount = mGame.getCells().getValuesUseCount();
-
-			if (mHighlightCompletedValues) {
-				for (int i = 0; i < valuesUseCount.size(); i++) {
-					if (valuesUseCount.valueAt(valuesUseCount.keyAt(i)) >= CellCollection.Companion.getSUDOKU_SIZE()) {
-						mEditCellDialog.highlightNumber(valuesUseCount.keyAt(i));
-					}
+			CellCollection cells = mGame.getCells();
+			for (int value = 1; value <= cells.getSize(); value++) {
+				int count = cells.getValueCount(value);
+				if (mHighlightCompletedValues && count >= cells.getSize()) {
+					mEditCellDialog.highlightNumber(value);
 				}
-			}
-
-			if (mShowNumberTotals) {
-				for (int i = 0; i < valuesUseCount.size(); i++) {
-					mEditCellDialog.setValueCount(valuesUseCount.keyAt(i), valuesUseCount.valueAt(valuesUseCount.keyAt(i)));
+				if (mShowNumberTotals) {
+					mEditCellDialog.setValueCount(value, count);
 				}
 			}
 			mEditCellDialog.show();
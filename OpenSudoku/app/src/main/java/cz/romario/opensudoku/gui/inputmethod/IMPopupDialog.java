@@ -21,7 +21,6 @@
 package cz.romario.opensudoku.gui.inputmethod;
 
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -31,6 +30,7 @@ import android.content.Context;
 import android.graphics.LightingColorFilter;
 import android.view.LayoutInflater;
 import android.view.View;
+import android.view.ViewGroup;
 import android.widget.Button;
 import android.widget.CompoundButton;
 import android.widget.FrameLayout;
@@ -42,17 +42,19 @@ import android.widget.ToggleButton;
 import android.widget.CompoundButton.OnCheckedChangeListener;
 import android.widget.LinearLayout.LayoutParams;
 import cz.romario.opensudoku.R;
+import cz.romario.opensudoku.game.BoardGeometry;
 
 public class IMPopupDialog extends Dialog {
 
 	private Context mContext;
 	private LayoutInflater mInflater;
+	private BoardGeometry mGeometry;
 	private TabHost mTabHost;
 
 	// buttons from "Select number" tab
-	private Map<Integer, Button> mNumberButtons = new HashMap<Integer, Button>();
+	private Map<Integer, Button> mNumberButtons;
 	// buttons from "Edit note" tab
-	private Map<Integer, ToggleButton> mNoteNumberButtons = new HashMap<Integer, ToggleButton>();
+	private Map<Integer, ToggleButton> mNoteNumberButtons;
 
 	// selected number on "Select number" tab (0 if nothing is selected).
 	private int mSelectedNumber;
@@ -62,10 +64,14 @@ public class IMPopupDialog extends Dialog {
 	private OnNumberEditListener mOnNumberEditListener;
 	private OnNoteEditListener mOnNoteEditListener;
 
-	public IMPopupDialog(Context context) {
+	/**
+	 * @param geometry Geometry of edited board, dialog shows one number button per value.
+	 */
+	public IMPopupDialog(Context context, BoardGeometry geometry) {
 		super(context);
 		mContext = context;
 		mInflater = (LayoutInflater) context.getSystemService(Context.LAYOUT_INFLATER_SERVICE);
+		mGeometry = geometry;
 
 		mTabHost = createTabView();
 
@@ -164,6 +170,10 @@ public class IMPopupDialog extends Dialog {
 //	}
 
 	public void highlightNumber(int number) {
+		if (!mNumberButtons.containsKey(number)) {
+			return;
+		}
+
 		int completedTextColor = mContext.getResources().getColor(R.color.im_number_button_completed_text);
 
 		if (number == mSelectedNumber) {
@@ -176,6 +186,10 @@ public class IMPopupDialog extends Dialog {
 	}
 
 	public void setValueCount(int number, int count) {
+		if (!mNumberButtons.containsKey(number)) {
+			return;
+		}
+
 		mNumberButtons.get(number).setText(number + " (" + count + ")");
 	}
 
@@ -242,19 +256,10 @@ public class IMPopupDialog extends Dialog {
 	private View createEditNumberView() {
 		View v = mInflater.inflate(R.layout.im_popup_edit_value, null);
 
-		mNumberButtons.put(1, (Button) v.findViewById(R.id.button_1));
-		mNumberButtons.put(2, (Button) v.findViewById(R.id.button_2));
-		mNumberButtons.put(3, (Button) v.findViewById(R.id.button_3));
-		mNumberButtons.put(4, (Button) v.findViewById(R.id.button_4));
-		mNumberButtons.put(5, (Button) v.findViewById(R.id.button_5));
-		mNumberButtons.put(6, (Button) v.findViewById(R.id.button_6));
-		mNumberButtons.put(7, (Button) v.findViewById(R.id.button_7));
-		mNumberButtons.put(8, (Button) v.findViewById(R.id.button_8));
-		mNumberButtons.put(9, (Button) v.findViewById(R.id.button_9));
-
-		for (Integer num : mNumberButtons.keySet()) {
-			Button b = mNumberButtons.get(num);
-			b.setTag(num);
+		mNumberButtons = NumberButtons.create(mInflater, (ViewGroup) v.findViewById(R.id.number_buttons),
+				R.layout.im_popup_number_button, mGeometry);
+
+		for (Button b : mNumberButtons.values()) {
 			b.setOnClickListener(editNumberButtonClickListener);
 		}
 
@@ -275,19 +280,10 @@ public class IMPopupDialog extends Dialog {
 	private View createEditNoteView() {
 		View v = mInflater.inflate(R.layout.im_popup_edit_note, null);
 
-		mNoteNumberButtons.put(1, (ToggleButton) v.findViewById(R.id.button_1));
-		mNoteNumberButtons.put(2, (ToggleButton) v.findViewById(R.id.button_2));
-		mNoteNumberButtons.put(3, (ToggleButton) v.findViewById(R.id.button_3));
-		mNoteNumberButtons.put(4, (ToggleButton) v.findViewById(R.id.button_4));
-		mNoteNumberButtons.put(5, (ToggleButton) v.findViewById(R.id.button_5));
-		mNoteNumberButtons.put(6, (ToggleButton) v.findViewById(R.id.button_6));
-		mNoteNumberButtons.put(7, (ToggleButton) v.findViewById(R.id.button_7));
-		mNoteNumberButtons.put(8, (ToggleButton) v.findViewById(R.id.button_8));
-		mNoteNumberButtons.put(9, (ToggleButton) v.findViewById(R.id.button_9));
-
-		for (Integer num : mNoteNumberButtons.keySet()) {
-			ToggleButton b = mNoteNumberButtons.get(num);
-			b.setTag(num);
+		mNoteNumberButtons = NumberButtons.create(mInflater, (ViewGroup) v.findViewById(R.id.number_buttons),
+				R.layout.im_popup_note_number_button, mGeometry);
+
+		for (ToggleButton b : mNoteNumberButtons.values()) {
 			b.setOnCheckedChangeListener(editNoteCheckedChangeListener);
 		}
 
@@ -23,20 +23,19 @@ package cz.romario.opensudoku.gui.inputmethod;
 import android.content.Context;
 import android.graphics.LightingColorFilter;
 import android.os.Handler;
-import android.util.SparseIntArray;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.View.OnClickListener;
+import android.view.ViewGroup;
 import android.widget.Button;
 import android.widget.ImageButton;
 
-import java.util.HashMap;
 import java.util.Map;
 
 import cz.romario.opensudoku.R;
 import cz.romario.opensudoku.game.Cell;
 import cz.romario.opensudoku.game.CellCollection;
-import cz.romario.opensudoku.game.CellCollection.OnChangeListener;
+import cz.romario.opensudoku.game.CellCollection.OnValueCountChangeListener;
 import cz.romario.opensudoku.game.CellNote;
 import cz.romario.opensudoku.game.SudokuGame;
 import cz.romario.opensudoku.gui.HintsQueue;
@@ -72,12 +71,12 @@ public class IMSingleNumber extends InputMethod {
 			update();
 		}
 	};
-	private OnChangeListener mOnCellsChangeListener = new OnChangeListener() {
+	private OnValueCountChangeListener mOnValueCountChangeListener = new OnValueCountChangeListener() {
 
 		@Override
-		public void onChange() {
+		public void onValueCountChange(int changedValues) {
 			if (mActive) {
-				update();
+				updateNumberButtons(changedValues);
 			}
 		}
 	};
@@ -115,7 +114,7 @@ public class IMSingleNumber extends InputMethod {
 							  SudokuGame game, SudokuBoardView board, HintsQueue hintsQueue) {
 		super.initialize(context, controlPanel, game, board, hintsQueue);
 
-		game.getCells().addOnChangeListener(mOnCellsChangeListener);
+		game.getCells().addOnValueCountChangeListener(mOnValueCountChangeListener);
 	}
 
 	@Override
@@ -138,16 +137,8 @@ public class IMSingleNumber extends InputMethod {
 		LayoutInflater inflater = (LayoutInflater) mContext.getSystemService(Context.LAYOUT_INFLATER_SERVICE);
 		View controlPanel = inflater.inflate(R.layout.im_single_number, null);
 
-		mNumberButtons = new HashMap<Integer, Button>();
-		mNumberButtons.put(1, (Button) controlPanel.findViewById(R.id.button_1));
-		mNumberButtons.put(2, (Button) controlPanel.findViewById(R.id.button_2));
-		mNumberButtons.put(3, (Button) controlPanel.findViewById(R.id.button_3));
-		mNumberButtons.put(4, (Button) controlPanel.findViewById(R.id.button_4));
-		mNumberButtons.put(5, (Button) controlPanel.findViewById(R.id.button_5));
-		mNumberButtons.put(6, (Button) controlPanel.findViewById(R.id.button_6));
-		mNumberButtons.put(7, (Button) controlPanel.findViewById(R.id.button_7));
-		mNumberButtons.put(8, (Button) controlPanel.findViewById(R.id.button_8));
-		mNumberButtons.put(9, (Button) controlPanel.findViewById(R.id.button_9));
+		mNumberButtons = NumberButtons.create(inflater, (ViewGroup) controlPanel.findViewById(R.id.number_buttons),
+				R.layout.im_number_button, mGame.getCells().getGeometry());
 		mNumberButtons.put(0, (Button) controlPanel.findViewById(R.id.button_clear));
 
 		for (Integer num : mNumberButtons.keySet()) {
@@ -186,48 +177,65 @@ public class IMSingleNumber extends InputMethod {
 			@Override
 			public void run() {
 				for (Button b : mNumberButtons.values()) {
-					b.setBackgroundResource(R.drawable.btn_default_bg);
-					if (b.getTag().equals(mSelectedNumber)) {
-						b.setTextAppearance(mContext, android.R.style.TextAppearance_Large_Inverse);
-						LightingColorFilter selBkgColorFilter = new LightingColorFilter(
-								mContext.getResources().getColor(R.color.im_number_button_selected_background), 0);
-						b.getBackground().setColorFilter(selBkgColorFilter);
-					} else {
-						b.setTextAppearance(mContext, android.R.style.TextAppearance_Widget_Button);
-						b.getBackground().setColorFilter(null);
-					}
+					resetNumberButton(b);
 				}
 
-				SparseIntArray valuesUseCount = new SparseIntArray();
-				if (mHighlightCompletedValues || mShowNumberTotals)
-					valuesUseCount = mGame.getCells().getValuesUseCount();
-
-				if (mHighlightCompletedValues) {
-					int completedTextColor = mContext.getResources().getColor(R.color.im_number_button_completed_text);
-					for (int i = 0, j = 0; i < valuesUseCount.size(); j = valuesUseCount.keyAt(i++)) {
-						boolean highlightValue = valuesUseCount.valueAt(j) >= CellCollection.Companion.getSUDOKU_SIZE();
-						if (highlightValue) {
-							Button b = mNumberButtons.get(j);
-							if (b.getTag().equals(mSelectedNumber)) {
-								b.setTextColor(completedTextColor);
-							} else {
-								b.setBackgroundResource(R.drawable.btn_completed_bg);
-							}
-						}
-					}
-				}
+				updateNumberButtons(mGame.getCells().getAllValuesMask());
+			}
+		}, 100);
+	}
+
+	private void resetNumberButton(Button b) {
+		b.setBackgroundResource(R.drawable.btn_default_bg);
+		if (b.getTag().equals(mSelectedNumber)) {
+			b.setTextAppearance(mContext, android.R.style.TextAppearance_Large_Inverse);
+			LightingColorFilter selBkgColorFilter = new LightingColorFilter(
+					mContext.getResources().getColor(R.color.im_number_button_selected_background), 0);
+			b.getBackground().setColorFilter(selBkgColorFilter);
+		} else {
+			b.setTextAppearance(mContext, android.R.style.TextAppearance_Widget_Button);
+			b.getBackground().setColorFilter(null);
+		}
+	}
 
-				if (mShowNumberTotals) {
-					for (int i = 0, j = 0; i < valuesUseCount.size(); j = valuesUseCount.keyAt(i++)) {
-						Button b = mNumberButtons.get(j);
-						if (!b.getTag().equals(mSelectedNumber))
-							b.setText(j + " (" + valuesUseCount.valueAt(j) + ")");
-						else
-							b.setText("" + j);
+	/**
+	 * Updates completed highlight and totals of number buttons.
+	 *
+	 * @param changedValues Bit mask of values whose buttons should be updated.
+	 */
+	private void updateNumberButtons(int changedValues) {
+		if (!mHighlightCompletedValues && !mShowNumberTotals) {
+			return;
+		}
+
+		CellCollection cells = mGame.getCells();
+		int completedTextColor = mContext.getResources().getColor(R.color.im_number_button_completed_text);
+		for (int value = 1; value <= cells.getSize(); value++) {
+			if ((changedValues & (1 << (value - 1))) == 0) {
+				continue;
+			}
+
+			int count = cells.getValueCount(value);
+			Button b = mNumberButtons.get(value);
+			boolean selected = b.getTag().equals(mSelectedNumber);
+			if (mHighlightCompletedValues) {
+				resetNumberButton(b);
+				if (count >= cells.getSize()) {
+					if (selected) {
+						b.setTextColor(completedTextColor);
+					} else {
+						b.setBackgroundResource(R.drawable.btn_completed_bg);
 					}
 				}
 			}
-		}, 100);
+
+			if (mShowNumberTotals) {
+				if (!selected)
+					b.setText(value + " (" + count + ")");
+				else
+					b.setText("" + value);
+			}
+		}
 	}
 
 	@Override
@@ -243,12 +251,12 @@ public class IMSingleNumber extends InputMethod {
 			case MODE_EDIT_NOTE:
 				if (selNumber == 0) {
 					mGame.setCellNote(cell, CellNote.Companion.getEMPTY());
-				} else if (selNumber > 0 && selNumber <= 9) {
+				} else if (selNumber > 0 && selNumber <= mGame.getCells().getSize()) {
 					mGame.setCellNote(cell, cell.getNote().toggleNumber(selNumber));
 				}
 				break;
 			case MODE_EDIT_VALUE:
-				if (selNumber >= 0 && selNumber <= 9) {
+				if (selNumber >= 0 && selNumber <= mGame.getCells().getSize()) {
 					if (!mNumberButtons.get(selNumber).isEnabled()) {
 						// Number requested has been disabled but it is still selected. This means that
 						// this number can be no longer entered, however any of the existing fields
@@ -0,0 +1,75 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+package cz.romario.opensudoku.gui.inputmethod;
+
+import android.view.LayoutInflater;
+import android.view.ViewGroup;
+import android.widget.Button;
+import android.widget.LinearLayout;
+import android.widget.ToggleButton;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import cz.romario.opensudoku.game.BoardGeometry;
+
+/**
+ * Creates number buttons of input methods for boards of any size. Buttons are laid out in grid
+ * of the same shape as board's sector (3x3 for 9x9 board, 2 rows of 3 for 6x6 board).
+ */
+class NumberButtons {
+
+	private NumberButtons() {
+	}
+
+	/**
+	 * Inflates one button per value 1..{@link BoardGeometry#getSize()} into the given vertical
+	 * container. Tag of each button is its value.
+	 *
+	 * @param buttonLayoutID Layout of single button, row of buttons is its parent.
+	 * @return Buttons by value.
+	 */
+	@SuppressWarnings("unchecked")
+	static <T extends Button> Map<Integer, T> create(LayoutInflater inflater, ViewGroup container,
+													 int buttonLayoutID, BoardGeometry geometry) {
+		Map<Integer, T> buttons = new HashMap<Integer, T>();
+		int value = 1;
+		for (int r = 0; r < geometry.getSectorHeight(); r++) {
+			LinearLayout row = new LinearLayout(container.getContext());
+			row.setOrientation(LinearLayout.HORIZONTAL);
+			container.addView(row, new LinearLayout.LayoutParams(
+					LinearLayout.LayoutParams.FILL_PARENT, 0, 1));
+			for (int c = 0; c < geometry.getSectorWidth(); c++) {
+				T b = (T) inflater.inflate(buttonLayoutID, row, false);
+				String text = String.valueOf(value);
+				if (b instanceof ToggleButton) {
+					((ToggleButton) b).setTextOn(text);
+					((ToggleButton) b).setTextOff(text);
+				}
+				b.setText(text);
+				b.setTag(value);
+				row.addView(b);
+				buttons.put(value, b);
+				value++;
+			}
+		}
+		return buttons;
+	}
+}
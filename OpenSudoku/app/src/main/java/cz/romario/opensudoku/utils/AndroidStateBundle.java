@@ -0,0 +1,105 @@
+package cz.romario.opensudoku.utils;
+
+import android.os.Bundle;
+
+import cz.romario.opensudoku.game.StateBundle;
+
+/**
+ * {@link StateBundle} backed by {@link Bundle}, lets game save its state in activity's
+ * instance state.
+ */
+public class AndroidStateBundle implements StateBundle {
+	private final Bundle mBundle;
+
+	public AndroidStateBundle(Bundle bundle) {
+		mBundle = bundle;
+	}
+
+	@Override
+	public boolean containsKey(String key) {
+		return mBundle.containsKey(key);
+	}
+
+	@Override
+	public void putBoolean(String key, boolean value) {
+		mBundle.putBoolean(key, value);
+	}
+
+	@Override
+	public boolean getBoolean(String key) {
+		return mBundle.getBoolean(key);
+	}
+
+	@Override
+	public void putInt(String key, int value) {
+		mBundle.putInt(key, value);
+	}
+
+	@Override
+	public int getInt(String key) {
+		return mBundle.getInt(key);
+	}
+
+	@Override
+	public void putLong(String key, long value) {
+		mBundle.putLong(key, value);
+	}
+
+	@Override
+	public long getLong(String key) {
+		return mBundle.getLong(key);
+	}
+
+	@Override
+	public void putString(String key, String value) {
+		mBundle.putString(key, value);
+	}
+
+	@Override
+	public String getString(String key) {
+		return mBundle.getString(key);
+	}
+
+	@Override
+	public void putIntArray(String key, int[] value) {
+		mBundle.putIntArray(key, value);
+	}
+
+	@Override
+	public int[] getIntArray(String key) {
+		return mBundle.getIntArray(key);
+	}
+
+	@Override
+	public void putStringArray(String key, String[] value) {
+		mBundle.putStringArray(key, value);
+	}
+
+	@Override
+	public String[] getStringArray(String key) {
+		return mBundle.getStringArray(key);
+	}
+
+	@Override
+	public void putByteArray(String key, byte[] value) {
+		mBundle.putByteArray(key, value);
+	}
+
+	@Override
+	public byte[] getByteArray(String key) {
+		return mBundle.getByteArray(key);
+	}
+
+	@Override
+	public StateBundle putBundle(String key) {
+		Bundle bundle = new Bundle();
+		mBundle.putBundle(key, bundle);
+		return new AndroidStateBundle(bundle);
+	}
+
+	@Override
+	public StateBundle getBundle(String key) {
+		Bundle bundle = mBundle.getBundle(key);
+		return bundle != null ? new AndroidStateBundle(bundle) : null;
+	}
+}
@@ -0,0 +1,261 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+
+package cz.romario.opensudoku.game
+
+import java.util.*
+
+/**
+ * Backtracking sudoku solver working on bit masks of cell candidates and of values used in rows,
+ * columns and sectors. Before each branching naked and hidden singles are filled in, then search
+ * branches on the empty cell with the fewest candidates.
+ */
+class BitboardSolver(override val geometry: BoardGeometry) : CancellableSolver {
+
+    constructor() : this(BoardGeometry.STANDARD)
+
+    private val size = geometry.size
+    private val cellCount = geometry.cellCount
+    private val allValues = geometry.allValuesMask
+    private val cellGroups = geometry.cellGroups
+    private val groupCells = geometry.rowCells + geometry.columnCells + geometry.sectorCells
+
+    private val peerCount = geometry.peerCount
+    private val peers = geometry.peers
+
+    // Board state for each search depth: cell values, then candidates of each cell (0 for
+    // filled cells), then masks of values used in each group.
+    private val candidatesOffset = cellCount
+    private val usedOffset = 2 * cellCount
+    private val stateSize = 2 * cellCount + geometry.groupCount
+    private val states = ArrayList<IntArray>()
+
+    // cells left with a single candidate, waiting to be filled in
+    private val singles = IntArray(cellCount)
+    private var singleCount = 0
+
+    private var limit = 0
+    private var solutionCount = 0
+    // first solutions found by the last search
+    private val solutions = ArrayList<IntArray>(CancellableSolver.MAX_KEPT_SOLUTIONS)
+    // token of the running search, null if it cannot be cancelled
+    private var token: CancelToken? = null
+
+    override fun solve(values: IntArray): IntArray? {
+        search(values, 1, null)
+        return if (solutions.isEmpty()) null else solutions[0]
+    }
+
+    override fun countSolutions(values: IntArray, limit: Int): Int {
+        search(values, limit, null)
+        return solutionCount
+    }
+
+    override fun countSolutions(values: IntArray, limit: Int, token: CancelToken): Int {
+        search(values, limit, token)
+        return solutionCount
+    }
+
+    override fun getSolution(index: Int): IntArray = solutions[index]
+
+    private fun search(values: IntArray, limit: Int, token: CancelToken?) {
+        if (values.size != cellCount) {
+            throw IllegalArgumentException("Board must have " + cellCount + " cells.")
+        }
+        this.limit = limit
+        this.token = token
+        solutionCount = 0
+        solutions.clear()
+
+        val state = getState(0)
+        Arrays.fill(state, 0)
+        Arrays.fill(state, candidatesOffset, candidatesOffset + cellCount, allValues)
+        singleCount = 0
+        for (i in 0 until cellCount) {
+            val value = values[i]
+            if (value < 0 || value > size) {
+                throw IllegalArgumentException("Value must be between 0-" + size + ".")
+            }
+            if (value != 0) {
+                if (state[candidatesOffset + i] and (1 shl (value - 1)) == 0 || !place(state, i, value)) {
+                    // value is already used in cell's row, column or sector
+                    return
+                }
+            }
+        }
+        if (limit > 0) {
+            search(0)
+        }
+    }
+
+    private fun search(depth: Int) {
+        val state = states[depth]
+        if (!propagate(state)) {
+            return
+        }
+
+        // branch on the cell with the fewest candidates
+        var bestCell = -1
+        var bestCount = Int.MAX_VALUE
+        for (i in 0 until cellCount) {
+            if (state[i] == 0) {
+                val count = Integer.bitCount(state[candidatesOffset + i])
+                if (count < bestCount) {
+                    bestCell = i
+                    bestCount = count
+                    if (count == 2) {
+                        break
+                    }
+                }
+            }
+        }
+
+        if (bestCell == -1) {
+            solutionCount++
+            if (solutions.size < CancellableSolver.MAX_KEPT_SOLUTIONS) {
+                solutions.add(Arrays.copyOf(state, cellCount))
+            }
+            return
+        }
+
+        val next = getState(depth + 1)
+        var candidates = state[candidatesOffset + bestCell]
+        while (candidates != 0 && solutionCount < limit && token?.isCancelled != true) {
+            val value = Integer.numberOfTrailingZeros(candidates) + 1
+            candidates = candidates and (candidates - 1)
+            System.arraycopy(state, 0, next, 0, stateSize)
+            singleCount = 0
+            if (place(next, bestCell, value)) {
+                search(depth + 1)
+            }
+        }
+    }
+
+    /**
+     * Fills in naked and hidden singles until there are none left.
+     *
+     * @return False if board turned out to have no solution.
+     */
+    private fun propagate(state: IntArray): Boolean {
+        while (true) {
+            while (singleCount > 0) {
+                val i = singles[--singleCount]
+                val candidates = state[candidatesOffset + i]
+                // cell may have been filled in meanwhile or lost its last candidate
+                if (state[i] == 0) {
+                    if (candidates == 0) {
+                        return false
+                    }
+                    if (!place(state, i, Integer.numberOfTrailingZeros(candidates) + 1)) {
+                        return false
+                    }
+                }
+            }
+
+            var progress = false
+            for (g in groupCells.indices) {
+                val used = state[usedOffset + g]
+                if (used == allValues) {
+                    continue
+                }
+                val cells = groupCells[g]
+                // values possible in at least one and in at least two empty cells of the group
+                var once = 0
+                var twice = 0
+                for (i in cells) {
+                    val candidates = state[candidatesOffset + i]
+                    twice = twice or (once and candidates)
+                    once = once or candidates
+                }
+                if (once or used != allValues) {
+                    // some value has no place left in the group
+                    return false
+                }
+
+                var hidden = once and twice.inv()
+                while (hidden != 0) {
+                    val bit = hidden and -hidden
+                    hidden = hidden and (hidden - 1)
+                    var placed = false
+                    for (i in cells) {
+                        if (state[candidatesOffset + i] and bit != 0) {
+                            if (!place(state, i, Integer.numberOfTrailingZeros(bit) + 1)) {
+                                return false
+                            }
+                            placed = true
+                            break
+                        }
+                    }
+                    if (!placed) {
+                        // the only cell for this value was taken by another hidden single
+                        return false
+                    }
+                    progress = true
+                }
+                if (singleCount > 0) {
+                    break
+                }
+            }
+            if (!progress && singleCount == 0) {
+                return true
+            }
+        }
+    }
+
+    /**
+     * Fills value into the cell and removes it from candidates of the cell's peers. Peers left
+     * with a single candidate are queued in [singles].
+     *
+     * @return False if some peer was left with no candidates.
+     */
+    private fun place(state: IntArray, index: Int, value: Int): Boolean {
+        state[index] = value
+        state[candidatesOffset + index] = 0
+        val bit = 1 shl (value - 1)
+        val offset = index * 3
+        state[usedOffset + cellGroups[offset]] = state[usedOffset + cellGroups[offset]] or bit
+        state[usedOffset + cellGroups[offset + 1]] = state[usedOffset + cellGroups[offset + 1]] or bit
+        state[usedOffset + cellGroups[offset + 2]] = state[usedOffset + cellGroups[offset + 2]] or bit
+
+        val peerOffset = index * peerCount
+        for (k in peerOffset until peerOffset + peerCount) {
+            val peer = candidatesOffset + peers[k]
+            val candidates = state[peer]
+            if (candidates and bit != 0) {
+                val remaining = candidates and bit.inv()
+                state[peer] = remaining
+                if (remaining == 0) {
+                    return false
+                }
+                if (remaining and (remaining - 1) == 0) {
+                    singles[singleCount++] = peers[k]
+                }
+            }
+        }
+        return true
+    }
+
+    private fun getState(depth: Int): IntArray {
+        while (states.size <= depth) {
+            states.add(IntArray(stateSize))
+        }
+        return states[depth]
+    }
+}
@@ -0,0 +1,166 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+
+package cz.romario.opensudoku.game
+
+import java.util.*
+
+/**
+ * Shape of sudoku board: number of rows (and columns) and size of its sectors. Instances are
+ * shared by all boards of the same shape and hold lookup tables used by [CellCollection].
+ *
+ * Cells are indexed by `row * size + column`, groups are indexed rows first, then columns,
+ * then sectors (so there are `3 * size` groups).
+ *
+ * @author romario
+ */
+class BoardGeometry private constructor(
+        /**
+         * Number of rows and columns of the board, which is also the highest value.
+         */
+        val size: Int,
+        /**
+         * Number of rows in one sector.
+         */
+        val sectorHeight: Int,
+        /**
+         * Number of columns in one sector.
+         */
+        val sectorWidth: Int) {
+
+    val cellCount = size * size
+
+    val groupCount = 3 * size
+
+    /**
+     * Bit mask with bits of all values set (bit 0 stands for value 1).
+     */
+    val allValuesMask = (1 shl size) - 1
+
+    internal val rowCells = Array(size) { r -> IntArray(size) { c -> r * size + c } }
+    internal val columnCells = Array(size) { c -> IntArray(size) { r -> r * size + c } }
+    internal val sectorCells = Array(size) { s ->
+        val sectorsPerRow = size / sectorWidth
+        IntArray(size) { i ->
+            (s / sectorsPerRow * sectorHeight + i / sectorWidth) * size + s % sectorsPerRow * sectorWidth + i % sectorWidth
+        }
+    }
+
+    // indexes of row, column and sector group for each cell, three entries per cell
+    internal val cellGroups = IntArray(cellCount * 3) { i ->
+        val r = i / 3 / size
+        val c = i / 3 % size
+        when (i % 3) {
+            0 -> r
+            1 -> size + c
+            else -> 2 * size + getSectorIndex(r, c)
+        }
+    }
+
+    // Cells sharing a row, column or sector with each cell, in index order, peerCount entries
+    // per cell.
+    internal val peerCount = 2 * (size - 1) + (sectorHeight - 1) * (sectorWidth - 1)
+    internal val peers: IntArray by lazy {
+        val result = IntArray(cellCount * peerCount)
+        var pos = 0
+        for (i in 0 until cellCount) {
+            for (j in 0 until cellCount) {
+                if (i != j && isPeer(i, j)) {
+                    result[pos++] = j
+                }
+            }
+        }
+        result
+    }
+
+    // Random keys for Zobrist hashing of board state, see CellCollection.zobristHash. Seeded by
+    // board size and table, so hashes are stable between runs.
+    internal val zobristValueKeys: LongArray by lazy {
+        val random = Random(getZobristSeed(0))
+        LongArray(cellCount * (size + 1)) { if (it % (size + 1) == 0) 0L else random.nextLong() }
+    }
+    internal val zobristNoteKeys: LongArray by lazy {
+        val random = Random(getZobristSeed(1))
+        LongArray(cellCount * size) { random.nextLong() }
+    }
+    internal val zobristReadOnlyKeys: LongArray by lazy {
+        val random = Random(getZobristSeed(2))
+        LongArray(cellCount) { random.nextLong() }
+    }
+
+    // Seed of key table, distinct for each board size and table. Mixed like in SplitMix64, so
+    // tables of different boards do not share any keys.
+    private fun getZobristSeed(table: Int): Long {
+        var z = ZOBRIST_SEED + ((size.toLong() shl 8) or table.toLong()) * -0x61c8864680b583ebL
+        z = (z xor (z ushr 30)) * -0x40a7b892e31b1a47L
+        z = (z xor (z ushr 27)) * -0x6b2fb644ecceee15L
+        return z xor (z ushr 31)
+    }
+
+    fun getSectorIndex(rowIndex: Int, colIndex: Int) =
+            rowIndex / sectorHeight * (size / sectorWidth) + colIndex / sectorWidth
+
+    /**
+     * Returns true if given cells are different and share a row, column or sector.
+     */
+    fun isPeer(index1: Int, index2: Int) = index1 != index2 &&
+            (cellGroups[index1 * 3] == cellGroups[index2 * 3] ||
+                    cellGroups[index1 * 3 + 1] == cellGroups[index2 * 3 + 1] ||
+                    cellGroups[index1 * 3 + 2] == cellGroups[index2 * 3 + 2])
+
+    override fun toString() = size.toString() + "x" + size
+
+    companion object {
+
+        /**
+         * Largest supported board size.
+         */
+        const val MAX_SIZE = 25
+
+        private const val ZOBRIST_SEED = 0x5EED5EEDL
+
+        /**
+         * Classic 9x9 board with 3x3 sectors.
+         */
+        @JvmField
+        val STANDARD = BoardGeometry(9, 3, 3)
+
+        private val GEOMETRIES = arrayOf(
+                BoardGeometry(4, 2, 2),
+                BoardGeometry(6, 2, 3),
+                STANDARD,
+                BoardGeometry(12, 3, 4),
+                BoardGeometry(16, 4, 4),
+                BoardGeometry(MAX_SIZE, 5, 5)
+        )
+
+        fun isSupportedSize(size: Int) = GEOMETRIES.any { it.size == size }
+
+        /**
+         * Returns geometry of board with given number of rows.
+         *
+         * @param size 4, 6, 9, 12, 16 or 25.
+         */
+        fun forSize(size: Int): BoardGeometry {
+            return GEOMETRIES.firstOrNull { it.size == size }
+                    ?: throw IllegalArgumentException("Unsupported board size: " + size)
+        }
+    }
+}
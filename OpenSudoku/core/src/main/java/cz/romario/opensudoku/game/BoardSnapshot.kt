@@ -0,0 +1,87 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+
+package cz.romario.opensudoku.game
+
+import java.util.*
+
+/**
+ * Immutable copy of [CellCollection] state, see [CellCollection.snapshot].
+ *
+ * Snapshot holds its own packed copy of values, notes and editable flags, so it can be
+ * freely passed to other threads, kept in history or compared with other snapshots
+ * while the original board is being edited.
+ *
+ * @author romario
+ */
+class BoardSnapshot internal constructor(val geometry: BoardGeometry,
+                                         internal val values: ByteArray,
+                                         internal val notes: IntArray,
+                                         internal val flags: ByteArray,
+                                         private val groupValueMasks: IntArray,
+                                         /**
+                                          * See [CellCollection.zobristHash].
+                                          */
+                                         val zobristHash: Long) {
+
+    val size: Int
+        get() = geometry.size
+
+    val cellCount: Int
+        get() = geometry.cellCount
+
+    fun getValue(index: Int) = values[index].toInt()
+
+    fun getValue(rowIndex: Int, colIndex: Int) = values[rowIndex * geometry.size + colIndex].toInt()
+
+    fun getNote(index: Int) = CellNote.valueOf(notes[index])
+
+    fun isEditable(index: Int) = flags[index].toInt() and CellCollection.FLAG_EDITABLE != 0
+
+    /**
+     * Returns bit mask of values not used in row, column or sector of the cell at given index,
+     * see [CellCollection.getCandidates].
+     */
+    fun getCandidates(index: Int): Int {
+        val cellGroups = geometry.cellGroups
+        val groupsOffset = index * 3
+        return geometry.allValuesMask and (groupValueMasks[cellGroups[groupsOffset]] or
+                groupValueMasks[cellGroups[groupsOffset + 1]] or
+                groupValueMasks[cellGroups[groupsOffset + 2]]).inv()
+    }
+
+    /**
+     * Creates new, independent [CellCollection] with the state of this snapshot.
+     */
+    fun toCellCollection() = CellCollection.fromSnapshot(this)
+
+    override fun equals(other: Any?): Boolean {
+        if (this === other) {
+            return true
+        }
+        return other is BoardSnapshot && other.zobristHash == zobristHash
+                && other.geometry == geometry
+                && Arrays.equals(other.values, values)
+                && Arrays.equals(other.notes, notes)
+                && Arrays.equals(other.flags, flags)
+    }
+
+    override fun hashCode() = (zobristHash xor (zobristHash ushr 32)).toInt()
+}
@@ -0,0 +1,43 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+package cz.romario.opensudoku.game
+
+/**
+ * Cancellation flag owned by the caller of a long running operation, which polls it. Flag is
+ * never cleared, so cancel which comes before the operation gets to check it is not lost; use
+ * new token for each operation.
+ *
+ * Token may have parent, it is then cancelled also when its parent is.
+ */
+class CancelToken @JvmOverloads constructor(private val parent: CancelToken? = null) {
+
+    @Volatile
+    private var cancelled = false
+
+    val isCancelled: Boolean
+        get() = cancelled || parent?.isCancelled == true
+
+    /**
+     * Cancels the operation, may be called from any thread.
+     */
+    fun cancel() {
+        cancelled = true
+    }
+}
@@ -0,0 +1,58 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+
+package cz.romario.opensudoku.game
+
+/**
+ * Solver whose search can be stopped from another thread and which keeps solutions it has
+ * found.
+ */
+interface CancellableSolver : Solver {
+
+    /**
+     * Counts solutions like [countSolutions], but search stops as soon as [token] is cancelled
+     * and returns what it has found so far. Caller has to check [token] to tell whether the
+     * count is complete.
+     */
+    fun countSolutions(values: IntArray, limit: Int, token: CancelToken): Int
+
+    /**
+     * Returns solution found by the last search. Only the first [MAX_KEPT_SOLUTIONS] solutions are kept, which
+     * is enough to tell that solution is not unique.
+     */
+    fun getSolution(index: Int): IntArray
+
+    companion object {
+        const val MAX_KEPT_SOLUTIONS = 2
+
+        /**
+         * Creates solver suitable for boards of given shape: large boards are searched by
+         * [ParallelSolver] when more processors are available, others by [BitboardSolver].
+         */
+        @JvmStatic
+        fun create(geometry: BoardGeometry): CancellableSolver {
+            return if (geometry.size >= ParallelSolver.MIN_SIZE && ParallelSolver.DEFAULT_THREAD_COUNT > 1) {
+                ParallelSolver(geometry)
+            } else {
+                BitboardSolver(geometry)
+            }
+        }
+    }
+}
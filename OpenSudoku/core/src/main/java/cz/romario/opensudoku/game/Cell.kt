@@ -0,0 +1,121 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+
+package cz.romario.opensudoku.game
+
+/**
+ * Sudoku cell. Every cell has value, some notes attached to it and some basic
+ * state (whether it is editable and valid).
+ *
+ * Cell holds no state of its own, it is a lightweight view over the packed arrays
+ * of its [CellCollection]. Use [CellCollection.getCell] to obtain one.
+ *
+ * @author romario
+ */
+class Cell internal constructor(private val cellCollection: CellCollection, val index: Int) {
+    /**
+     * Gets cell's row index within [CellCollection].
+     *
+     * @return Cell's row index within CellCollection.
+     */
+    val rowIndex: Int
+        get() = index / cellCollection.size
+    /**
+     * Gets cell's column index within [CellCollection].
+     *
+     * @return Cell's column index within CellColection.
+     */
+    val columnIndex: Int
+        get() = index % cellCollection.size
+    /**
+     * Returns sector containing this cell. Sector is 3x3 group of cells on the standard board.
+     *
+     * @return Sector containing this cell.
+     */
+    val sector: CellGroup
+        get() = cellCollection.getSector(rowIndex, columnIndex)
+    /**
+     * Returns row containing this cell.
+     *
+     * @return Row containing this cell.
+     */
+    val row: CellGroup
+        get() = cellCollection.getRow(rowIndex)
+    /**
+     * Returns column containing this cell.
+     *
+     * @return Column containing this cell.
+     */
+    val column: CellGroup
+        get() = cellCollection.getColumn(columnIndex)
+    /**
+     * Returns whether cell can be edited.
+     *
+     * @return True if cell can be edited.
+     */
+    var isEditable: Boolean
+        get() = cellCollection.isEditable(index)
+        set(value) = cellCollection.setEditable(index, value)
+    /**
+     * Returns true, if cell contains valid value according to sudoku rules.
+     *
+     * @return True, if cell contains valid value according to sudoku rules.
+     */
+    val isValid: Boolean
+        get() = cellCollection.isValid(index)
+
+    /**
+     * Gets cell's value. Value can be 1-9 (up to board size) or 0 if cell is empty.
+     *
+     * @return Cell's value. Value can be 1-9 (up to board size) or 0 if cell is empty.
+     */
+    /**
+     * Sets cell's value. Value can be 1-9 (up to board size) or 0 if cell should be empty.
+     *
+     * @param value 1-9 (up to board size) or 0 if cell should be empty.
+     */
+    var value: Int
+        get() = cellCollection.getValue(index)
+        set(value) = cellCollection.setValue(index, value)
+
+    /**
+     * Gets note attached to the cell.
+     *
+     * @return Note attached to the cell.
+     */
+    /**
+     * Sets note attached to the cell
+     *
+     * @param note Note attached to the cell
+     */
+    var note: CellNote
+        get() = cellCollection.getNote(index)
+        set(note) = cellCollection.setNote(index, note)
+
+    /**
+     * Appends string representation of this object to the given `Appendable`.
+     * You can later recreate object from this string by calling [CellCollection.deserialize].
+     *
+     * @param data
+     */
+    fun serialize(data: Appendable) {
+        cellCollection.serializeCell(index, data)
+    }
+}
@@ -0,0 +1,926 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+
+package cz.romario.opensudoku.game
+
+import java.io.IOException
+import java.util.*
+
+/**
+ * Collection of sudoku cells. This class in fact represents one sudoku board (9x9 by default,
+ * see [BoardGeometry] for other supported shapes).
+ *
+ * Cell state is kept in packed primitive arrays indexed by `row * size + column`,
+ * [Cell] instances are just views over them and are created on demand.
+ *
+ * @author romario
+ */
+class CellCollection private constructor(val geometry: BoardGeometry) {
+    private val mChangeListeners = ArrayList<OnChangeListener>()
+    private val mValueCountChangeListeners = ArrayList<OnValueCountChangeListener>()
+
+    /**
+     * Number of rows and columns of the board, which is also the highest value.
+     */
+    val size = geometry.size
+
+    /**
+     * Number of cells on the board.
+     */
+    val cellCount = geometry.cellCount
+
+    private val values = ByteArray(cellCount)
+    private val notes = IntArray(cellCount)
+    private val flags = ByteArray(cellCount)
+    private val cellViews = arrayOfNulls<Cell>(cellCount)
+    private val cellGroups = geometry.cellGroups
+
+    // Helper arrays, contains references to the groups of cells, which should contain unique
+    // numbers.
+    private val rows = Array(size) { CellGroup(this, it, geometry.rowCells[it]) }
+    private val columns = Array(size) { CellGroup(this, size + it, geometry.columnCells[it]) }
+    private val sectors = Array(size) { CellGroup(this, 2 * size + it, geometry.sectorCells[it]) }
+
+    // Cells changed since listeners were last notified and nesting depth of
+    // beginChange/endChange calls. Listeners are notified only when depth drops to zero.
+    private val changedCells = BitSet(cellCount)
+    private var changedValues = 0
+    private var changeDepth = 0
+
+    // Cells changed since the board was last persisted, see clearDirtyCells(). New boards
+    // have never been persisted, so all their cells are dirty.
+    private val dirtyCells = BitSet(cellCount)
+    private var editableFlagsDirty = false
+
+    // Validation state, kept up to date on every value change: how many times each value is
+    // used in each group, how many cells are filled in and how many group/value pairs are
+    // used more than once.
+    private val groupValueCounts = ByteArray(geometry.groupCount * (size + 1))
+    // Bit masks of values used in each group (bit 0 for value 1, same as CellNote).
+    private val groupValueMasks = IntArray(geometry.groupCount)
+    private var filledCount = 0
+    private var conflictCount = 0
+    // how many times each value is used on the whole board
+    private val valueCounts = IntArray(size + 1)
+
+    /**
+     * 64-bit Zobrist hash of values, notes and editable flags of all cells. It is updated
+     * incrementally on every change, so it can be used as a cheap key of current position.
+     * Equal boards always have equal hash, empty board has hash 0.
+     */
+    var zobristHash = 0L
+        private set
+
+    val isEmpty: Boolean
+        get() = filledCount == 0
+
+    val isCompleted: Boolean
+        get() = filledCount == cellCount && conflictCount == 0
+
+    /**
+     * Bit mask with bits of all values set (bit 0 stands for value 1).
+     */
+    val allValuesMask: Int
+        get() = geometry.allValuesMask
+
+    interface OnChangeListener {
+        /**
+         * Called after cells have changed.
+         *
+         * @param changedCells Indexes of changed cells. Listener must not keep the reference.
+         */
+        fun onChange(changedCells: BitSet)
+    }
+
+    interface OnValueCountChangeListener {
+        /**
+         * Called after use count of some values has changed, see [getValueCount].
+         *
+         * @param changedValues Bit mask of values whose count has changed, bit 0 stands for value 1.
+         */
+        fun onValueCountChange(changedValues: Int)
+    }
+
+    init {
+        Arrays.fill(flags, FLAG_EDITABLE.toByte())
+        dirtyCells.set(0, cellCount)
+        editableFlagsDirty = true
+    }
+
+    fun getCell(rowIndex: Int, colIndex: Int) = getCell(rowIndex * size + colIndex)
+
+    fun getCell(index: Int): Cell {
+        var cell = cellViews[index]
+        if (cell == null) {
+            cell = Cell(this, index)
+            cellViews[index] = cell
+        }
+        return cell
+    }
+
+    fun getRow(rowIndex: Int) = rows[rowIndex]
+
+    fun getColumn(colIndex: Int) = columns[colIndex]
+
+    fun getSector(rowIndex: Int, colIndex: Int) = sectors[geometry.getSectorIndex(rowIndex, colIndex)]
+
+    fun getValue(index: Int) = values[index].toInt()
+
+    fun setValue(index: Int, value: Int) {
+        if (value < 0 || value > size) {
+            throw IllegalArgumentException("Value must be between 0-" + size + ".")
+        }
+        val oldValue = values[index].toInt()
+        if (oldValue != value) {
+            updateValueCounts(index, oldValue, -1)
+            values[index] = value.toByte()
+            updateValueCounts(index, value, 1)
+            val valueKeys = geometry.zobristValueKeys
+            val keyOffset = index * (size + 1)
+            zobristHash = zobristHash xor valueKeys[keyOffset + oldValue] xor valueKeys[keyOffset + value]
+            dirtyCells.set(index)
+        }
+        onChange(index)
+    }
+
+    fun getNote(index: Int) = CellNote.valueOf(notes[index])
+
+    fun setNote(index: Int, note: CellNote) {
+        if (note.notesMask and geometry.allValuesMask.inv() != 0) {
+            throw IllegalArgumentException("Note values must be between 1-" + size + ".")
+        }
+        var changedMask = notes[index] xor note.notesMask
+        if (changedMask != 0) {
+            dirtyCells.set(index)
+        }
+        while (changedMask != 0) {
+            val bit = Integer.numberOfTrailingZeros(changedMask)
+            zobristHash = zobristHash xor geometry.zobristNoteKeys[index * size + bit]
+            changedMask = changedMask and (changedMask - 1)
+        }
+        notes[index] = note.notesMask
+        onChange(index)
+    }
+
+    fun isEditable(index: Int) = flags[index].toInt() and FLAG_EDITABLE != 0
+
+    fun setEditable(index: Int, editable: Boolean) {
+        setFlag(index, FLAG_EDITABLE, editable)
+        onChange(index)
+    }
+
+    /**
+     * Returns true, if cell at given index contains valid value according to sudoku rules,
+     * that is the value is not used anywhere else in cell's row, column or sector.
+     */
+    fun isValid(index: Int): Boolean {
+        val value = values[index].toInt()
+        if (value == 0) {
+            return true
+        }
+        val groupsOffset = index * 3
+        for (i in groupsOffset until groupsOffset + 3) {
+            if (groupValueCounts[cellGroups[i] * (size + 1) + value] > 1) {
+                return false
+            }
+        }
+        return true
+    }
+
+    /**
+     * Returns how many times is given value used on the board.
+     *
+     * @param value Value 1-[size].
+     */
+    fun getValueCount(value: Int) = valueCounts[value]
+
+    /**
+     * Returns bit mask of values which can be entered into the cell at given index, that is
+     * values not used in cell's row, column or sector. Bit 0 stands for value 1, so the mask
+     * can be passed directly to [CellNote.valueOf].
+     */
+    fun getCandidates(index: Int): Int {
+        val groupsOffset = index * 3
+        return geometry.allValuesMask and (groupValueMasks[cellGroups[groupsOffset]] or
+                groupValueMasks[cellGroups[groupsOffset + 1]] or
+                groupValueMasks[cellGroups[groupsOffset + 2]]).inv()
+    }
+
+    /**
+     * Returns bit mask of values used in given group.
+     */
+    internal fun getGroupValueMask(groupIndex: Int) = groupValueMasks[groupIndex]
+
+    /**
+     * Returns how many times is given value used in given group.
+     */
+    internal fun getGroupValueCount(groupIndex: Int, value: Int) =
+            groupValueCounts[groupIndex * (size + 1) + value].toInt()
+
+    private fun updateValueCounts(index: Int, value: Int, delta: Int) {
+        if (value == 0) {
+            return
+        }
+
+        filledCount += delta
+        valueCounts[value] += delta
+        changedValues = changedValues or (1 shl (value - 1))
+        val groupsOffset = index * 3
+        for (i in groupsOffset until groupsOffset + 3) {
+            val slot = cellGroups[i] * (size + 1) + value
+            val before = groupValueCounts[slot].toInt()
+            val after = before + delta
+            groupValueCounts[slot] = after.toByte()
+            if (before == 0) {
+                groupValueMasks[cellGroups[i]] = groupValueMasks[cellGroups[i]] or (1 shl (value - 1))
+            } else if (after == 0) {
+                groupValueMasks[cellGroups[i]] = groupValueMasks[cellGroups[i]] and (1 shl (value - 1)).inv()
+            }
+            if (before <= 1 && after > 1) {
+                conflictCount++
+            } else if (before > 1 && after <= 1) {
+                conflictCount--
+            }
+        }
+    }
+
+    private fun setFlag(index: Int, flag: Int, set: Boolean) {
+        val current = flags[index].toInt()
+        val updated = if (set) current or flag else current and flag.inv()
+        if (current != updated) {
+            dirtyCells.set(index)
+        }
+        if (flag == FLAG_EDITABLE && current != updated) {
+            zobristHash = zobristHash xor geometry.zobristReadOnlyKeys[index]
+            editableFlagsDirty = true
+        }
+        flags[index] = updated.toByte()
+    }
+
+    private fun computeZobristHash(): Long {
+        var hash = 0L
+        for (i in 0 until cellCount) {
+            hash = hash xor geometry.zobristValueKeys[i * (size + 1) + values[i]]
+            var mask = notes[i]
+            while (mask != 0) {
+                hash = hash xor geometry.zobristNoteKeys[i * size + Integer.numberOfTrailingZeros(mask)]
+                mask = mask and (mask - 1)
+            }
+            if (!isEditable(i)) {
+                hash = hash xor geometry.zobristReadOnlyKeys[i]
+            }
+        }
+        return hash
+    }
+
+    /**
+     * Rebuilds validation state and [zobristHash] from scratch. Both are maintained
+     * automatically when cells are changed through setters, this is only needed after values
+     * have been written directly (deserialization, bulk edits).
+     */
+    fun validate() {
+        Arrays.fill(groupValueCounts, 0.toByte())
+        Arrays.fill(groupValueMasks, 0)
+        Arrays.fill(valueCounts, 0)
+        filledCount = 0
+        conflictCount = 0
+        for (i in 0 until cellCount) {
+            updateValueCounts(i, values[i].toInt(), 1)
+        }
+        changedValues = geometry.allValuesMask
+        zobristHash = computeZobristHash()
+
+        onChangeAll()
+    }
+
+    fun markAllCellsAsEditable() {
+        for (i in 0 until cellCount) {
+            setFlag(i, FLAG_EDITABLE, true)
+        }
+        onChangeAll()
+    }
+
+    fun markFilledCellsAsNotEditable() {
+        for (i in 0 until cellCount) {
+            setFlag(i, FLAG_EDITABLE, values[i].toInt() == 0)
+        }
+        onChangeAll()
+    }
+
+    /**
+     * Returns immutable copy of the current board state, which can be safely used from other
+     * threads. Takes O(cellCount) time, no strings are involved.
+     */
+    fun snapshot(): BoardSnapshot {
+        return BoardSnapshot(geometry, values.copyOf(), notes.copyOf(), flags.copyOf(), groupValueMasks.copyOf(), zobristHash)
+    }
+
+    fun serialize(): String {
+        val sb = StringBuilder(cellCount * 8)
+        serialize(sb)
+        return sb.toString()
+    }
+
+    /**
+     * Writes text form of the board ([DATA_VERSION_1]) straight into given `Appendable`,
+     * which can be reused between calls. No intermediate objects are created.
+     */
+    @Throws(IOException::class)
+    fun serialize(out: Appendable) {
+        out.append("version: 1\n")
+        if (geometry != BoardGeometry.STANDARD) {
+            out.append("size: ")
+            CellNote.appendNumber(size, out)
+            out.append('\n')
+        }
+
+        for (i in 0 until cellCount) {
+            serializeCell(i, out)
+        }
+    }
+
+    internal fun serializeCell(index: Int, out: Appendable) {
+        CellNote.appendNumber(values[index].toInt(), out)
+        out.append('|')
+        CellNote.serializeMask(notes[index], out)
+        out.append('|')
+        out.append(if (isEditable(index)) '1' else '0')
+        out.append('|')
+    }
+
+    /**
+     * Size of the board in binary form in bytes, see [serializeBinary].
+     */
+    val binarySize: Int
+        get() = getBinarySize(size)
+
+    /**
+     * Serializes board into compact binary form, see [DATA_VERSION_2].
+     */
+    fun serializeBinary(): ByteArray {
+        val data = ByteArray(binarySize)
+        serializeBinary(data, 0)
+        return data
+    }
+
+    /**
+     * Serializes board into compact binary form into given buffer, which can be reused
+     * between calls. Buffer must have at least [binarySize] bytes after offset.
+     *
+     * @return Number of bytes written.
+     */
+    fun serializeBinary(buffer: ByteArray, offset: Int): Int {
+        val length = binarySize
+        Arrays.fill(buffer, offset, offset + length, 0.toByte())
+        buffer[offset] = DATA_VERSION_2.toByte()
+        buffer[offset + 1] = size.toByte()
+
+        val valueBits = getBinaryValueBits(size)
+        val cellBits = valueBits + size + 1
+        var bitPos = (offset + BINARY_HEADER_SIZE) * 8
+        for (i in 0 until cellCount) {
+            var packed = values[i].toInt() or (notes[i] shl valueBits)
+            if (isEditable(i)) {
+                packed = packed or (1 shl (valueBits + size))
+            }
+            writeBits(buffer, bitPos, packed, cellBits)
+            bitPos += cellBits
+        }
+        return length
+    }
+
+    /**
+     * Number of cells changed since [clearDirtyCells] was called.
+     */
+    val dirtyCellCount: Int
+        get() = dirtyCells.cardinality()
+
+    /**
+     * True if editable flag of some cell (that is givens of the puzzle) has changed since
+     * [clearDirtyCells] was called.
+     */
+    val hasEditableChanges: Boolean
+        get() = editableFlagsDirty
+
+    /**
+     * Marks current state as persisted, following changes are tracked from now on.
+     */
+    fun clearDirtyCells() {
+        dirtyCells.clear()
+        editableFlagsDirty = false
+    }
+
+    /**
+     * Size of data returned by [serializeChanges] in bytes.
+     */
+    val changesSize: Int
+        get() = CHANGES_HEADER_SIZE + dirtyCellCount * getChangeRecordSize(size)
+
+    /**
+     * Serializes state of cells changed since [clearDirtyCells] was called. Board size byte
+     * is followed by one record per cell: cell index (2 bytes), value with editable flag
+     * in the highest bit (1 byte) and note mask (2 bytes for 9x9 board). Data can be applied
+     * to the persisted board by [applyChanges].
+     */
+    fun serializeChanges(): ByteArray {
+        val data = ByteArray(changesSize)
+        data[0] = size.toByte()
+        val noteBytes = getChangeRecordSize(size) - CHANGE_RECORD_FIXED_SIZE
+        var pos = CHANGES_HEADER_SIZE
+        var index = dirtyCells.nextSetBit(0)
+        while (index >= 0) {
+            data[pos++] = (index ushr 8).toByte()
+            data[pos++] = index.toByte()
+            data[pos++] = (values[index].toInt() or (if (isEditable(index)) CHANGE_EDITABLE_BIT else 0)).toByte()
+            for (b in 0 until noteBytes) {
+                data[pos++] = (notes[index] ushr (b * 8)).toByte()
+            }
+            index = dirtyCells.nextSetBit(index + 1)
+        }
+        return data
+    }
+
+    /**
+     * Applies cell changes serialized by [serializeChanges] to this board.
+     */
+    fun applyChanges(data: ByteArray) {
+        val recordSize = getChangeRecordSize(size)
+        if (data.size < CHANGES_HEADER_SIZE || data[0].toInt() != size
+                || (data.size - CHANGES_HEADER_SIZE) % recordSize != 0) {
+            throw IllegalArgumentException("Cannot apply changes, data corrupted.")
+        }
+        val noteBytes = recordSize - CHANGE_RECORD_FIXED_SIZE
+        var pos = CHANGES_HEADER_SIZE
+        while (pos < data.size) {
+            val index = (data[pos].toInt() and 0xFF shl 8) or (data[pos + 1].toInt() and 0xFF)
+            val valueAndFlag = data[pos + 2].toInt() and 0xFF
+            val value = valueAndFlag and CHANGE_EDITABLE_BIT.inv()
+            var note = 0
+            for (b in 0 until noteBytes) {
+                note = note or ((data[pos + CHANGE_RECORD_FIXED_SIZE + b].toInt() and 0xFF) shl (b * 8))
+            }
+            if (index >= cellCount || value > size || note and geometry.allValuesMask.inv() != 0) {
+                throw IllegalArgumentException("Cannot apply changes, data corrupted.")
+            }
+            values[index] = value.toByte()
+            notes[index] = note
+            setFlag(index, FLAG_EDITABLE, valueAndFlag and CHANGE_EDITABLE_BIT != 0)
+            pos += recordSize
+        }
+        validate()
+    }
+
+    fun addOnChangeListener(listener: OnChangeListener) {
+        synchronized(mChangeListeners) {
+            mChangeListeners.add(listener)
+        }
+    }
+
+    fun addOnValueCountChangeListener(listener: OnValueCountChangeListener) {
+        synchronized(mValueCountChangeListeners) {
+            mValueCountChangeListeners.add(listener)
+        }
+    }
+
+    /**
+     * Starts batch of changes. Listeners are not notified until matching [endChange] is
+     * called, then they get one event with all cells changed in between. Calls can be nested.
+     */
+    fun beginChange() {
+        changeDepth++
+    }
+
+    /**
+     * Ends batch of changes started by [beginChange].
+     */
+    fun endChange() {
+        if (changeDepth == 0) {
+            throw IllegalStateException("endChange() called without beginChange().")
+        }
+        changeDepth--
+        fireChange()
+    }
+
+    /**
+     * Runs given block as one batch of changes, see [beginChange].
+     */
+    inline fun <T> batch(block: () -> T): T {
+        beginChange()
+        try {
+            return block()
+        } finally {
+            endChange()
+        }
+    }
+
+    private fun onChange(index: Int) {
+        changedCells.set(index)
+        fireChange()
+    }
+
+    private fun onChangeAll() {
+        changedCells.set(0, cellCount)
+        fireChange()
+    }
+
+    /**
+     * Notify all registered listeners that something has changed.
+     */
+    private fun fireChange() {
+        if (changeDepth > 0 || changedCells.isEmpty) {
+            return
+        }
+
+        val changed = changedCells.clone() as BitSet
+        changedCells.clear()
+        val valuesMask = changedValues
+        changedValues = 0
+        synchronized(mChangeListeners) {
+            for (l in mChangeListeners) {
+                l.onChange(changed)
+            }
+        }
+        if (valuesMask != 0) {
+            synchronized(mValueCountChangeListeners) {
+                for (l in mValueCountChangeListeners) {
+                    l.onValueCountChange(valuesMask)
+                }
+            }
+        }
+    }
+
+    companion object {
+
+        /**
+         * Size of the standard board.
+         */
+        val SUDOKU_SIZE = 9
+
+        internal const val FLAG_EDITABLE = 1
+
+        /**
+         * String is expected to be in format "00002343243202...", where each number represents
+         * cell value, no other information can be set using this method. Whitespace between
+         * digits (e.g. rows on separate lines, CRLF line ends) is skipped.
+         */
+        var DATA_VERSION_PLAIN = 0
+
+        /**
+         * Line "version: 1", optionally followed by "size: N" line for boards other than 9x9,
+         * and one "value|note|editable|" record per cell, see [serialize].
+         */
+        var DATA_VERSION_1 = 1
+
+        /**
+         * Binary format produced by [serializeBinary]. Two header bytes (version and board size)
+         * are followed by bit stream with one record per cell, least significant bits first:
+         * value (4 bits for 9x9 board), note mask (one bit per value) and editable flag.
+         * Standard board takes 144 bytes.
+         */
+        val DATA_VERSION_2 = 2
+
+        private const val BINARY_HEADER_SIZE = 2
+
+        private const val VERSION_PREFIX = "version: "
+
+        private const val CHANGES_HEADER_SIZE = 1
+        // cell index and value byte of change record, note mask follows
+        private const val CHANGE_RECORD_FIXED_SIZE = 3
+        private const val CHANGE_EDITABLE_BIT = 0x80
+
+        fun createEmpty(): CellCollection {
+            return CellCollection(BoardGeometry.STANDARD)
+        }
+
+        fun createEmpty(geometry: BoardGeometry): CellCollection {
+            return CellCollection(geometry)
+        }
+
+        /**
+         * Creates board with the state of given snapshot.
+         */
+        fun fromSnapshot(snapshot: BoardSnapshot): CellCollection {
+            val cells = CellCollection(snapshot.geometry)
+            System.arraycopy(snapshot.values, 0, cells.values, 0, cells.cellCount)
+            System.arraycopy(snapshot.notes, 0, cells.notes, 0, cells.cellCount)
+            System.arraycopy(snapshot.flags, 0, cells.flags, 0, cells.cellCount)
+            cells.validate()
+            return cells
+        }
+
+        /**
+         * Deserializes board from binary data produced by [serializeBinary].
+         */
+        fun deserialize(data: ByteArray): CellCollection {
+            if (!isValid(data)) {
+                throw IllegalArgumentException("Cannot deserialize Sudoku, data corrupted.")
+            }
+            val cells = CellCollection(BoardGeometry.forSize(data[1].toInt()))
+            val size = cells.size
+            val valueBits = getBinaryValueBits(size)
+            val cellBits = valueBits + size + 1
+
+            var bitPos = BINARY_HEADER_SIZE * 8
+            for (i in 0 until cells.cellCount) {
+                val packed = readBits(data, bitPos, cellBits)
+                cells.values[i] = (packed and ((1 shl valueBits) - 1)).toByte()
+                cells.notes[i] = (packed ushr valueBits) and ((1 shl size) - 1)
+                cells.setFlag(i, FLAG_EDITABLE, (packed ushr (valueBits + size)) and 1 != 0)
+                bitPos += cellBits
+            }
+            cells.validate()
+
+            return cells
+        }
+
+        /**
+         * Deserializes board from text data in [DATA_VERSION_PLAIN] or [DATA_VERSION_1] format.
+         *
+         * @throws IllegalArgumentException If data are not valid, message contains offset
+         * of the first error.
+         */
+        fun deserialize(data: String): CellCollection {
+            val dataVersion = if (data.startsWith(VERSION_PREFIX)) DATA_VERSION_1 else DATA_VERSION_PLAIN
+            val parser = TextParser(data, true)
+            if (!parser.parse(dataVersion)) {
+                throw IllegalArgumentException("Cannot deserialize Sudoku, data corrupted at offset "
+                        + parser.errorOffset + ": " + parser.errorMessage + ".")
+            }
+            return parser.cells!!
+        }
+
+        /**
+         * Checks whether given binary data are in [DATA_VERSION_2] format.
+         */
+        fun isValid(data: ByteArray): Boolean {
+            if (data.size < BINARY_HEADER_SIZE || data[0].toInt() != DATA_VERSION_2
+                    || !BoardGeometry.isSupportedSize(data[1].toInt())) {
+                return false
+            }
+            val size = data[1].toInt()
+            val valueBits = getBinaryValueBits(size)
+            val cellBits = valueBits + size + 1
+            val cellCount = size * size
+            if (data.size != getBinarySize(size)) {
+                return false
+            }
+
+            var bitPos = BINARY_HEADER_SIZE * 8
+            for (i in 0 until cellCount) {
+                if (readBits(data, bitPos, valueBits) > size) {
+                    return false
+                }
+                bitPos += cellBits
+            }
+            return true
+        }
+
+        // number of bits needed to store values 0..size
+        private fun getBinaryValueBits(size: Int) = 32 - Integer.numberOfLeadingZeros(size)
+
+        private fun getChangeRecordSize(size: Int) = CHANGE_RECORD_FIXED_SIZE + (size + 7) / 8
+
+        private fun getBinarySize(size: Int) =
+                BINARY_HEADER_SIZE + (size * size * (getBinaryValueBits(size) + size + 1) + 7) / 8
+
+        private fun writeBits(data: ByteArray, bitPos: Int, bits: Int, count: Int) {
+            var pos = bitPos
+            var remaining = count
+            var pending = bits
+            while (remaining > 0) {
+                val offset = pos and 7
+                val n = Math.min(8 - offset, remaining)
+                val chunk = pending and ((1 shl n) - 1)
+                data[pos ushr 3] = (data[pos ushr 3].toInt() or (chunk shl offset)).toByte()
+                pending = pending ushr n
+                pos += n
+                remaining -= n
+            }
+        }
+
+        private fun readBits(data: ByteArray, bitPos: Int, count: Int): Int {
+            var pos = bitPos
+            var result = 0
+            var read = 0
+            while (read < count) {
+                val offset = pos and 7
+                val n = Math.min(8 - offset, count - read)
+                val chunk = (data[pos ushr 3].toInt() ushr offset) and ((1 shl n) - 1)
+                result = result or (chunk shl read)
+                pos += n
+                read += n
+            }
+            return result
+        }
+
+        /**
+         * Checks whether given text data are in given format. Data are only scanned, no board
+         * is created.
+         */
+        fun isValid(data: String, dataVersion: Int): Boolean {
+            return TextParser(data, false).parse(dataVersion)
+        }
+    }
+
+    /**
+     * Single pass parser of text formats. Data are validated as they are read and, when
+     * [build] is set, written straight into new board, no intermediate strings or collections
+     * are created. On error [errorOffset] and [errorMessage] describe the first problem.
+     */
+    private class TextParser(private val data: CharSequence, private val build: Boolean) {
+        private var pos = 0
+
+        var cells: CellCollection? = null
+            private set
+        var errorOffset = -1
+            private set
+        var errorMessage: String? = null
+            private set
+
+        fun parse(dataVersion: Int): Boolean {
+            return when (dataVersion) {
+                DATA_VERSION_PLAIN -> parsePlain()
+                DATA_VERSION_1 -> parseVersion1()
+                else -> throw IllegalArgumentException("Unknown version: " + dataVersion)
+            }
+        }
+
+        private fun parsePlain(): Boolean {
+            val target = if (build) CellCollection(BoardGeometry.STANDARD) else null
+            for (i in 0 until BoardGeometry.STANDARD.cellCount) {
+                skipWhitespace()
+                val ch = peek()
+                if (ch !in '0'..'9') {
+                    return fail(pos, "digit expected")
+                }
+                pos++
+                if (target != null) {
+                    target.values[i] = (ch - '0').toByte()
+                    target.setFlag(i, FLAG_EDITABLE, ch == '0')
+                }
+            }
+            skipWhitespace()
+            return finish(target)
+        }
+
+        private fun parseVersion1(): Boolean {
+            if (!expect(VERSION_PREFIX) || !expect("1\n")) {
+                return false
+            }
+
+            var geometry = BoardGeometry.STANDARD
+            if (peek() == 's') {
+                if (!expect("size: ")) {
+                    return false
+                }
+                val sizeStart = pos
+                val size = readNumber()
+                if (!BoardGeometry.isSupportedSize(size)) {
+                    return fail(sizeStart, "unsupported board size")
+                }
+                if (!expect("\n")) {
+                    return false
+                }
+                geometry = BoardGeometry.forSize(size)
+            }
+
+            val target = if (build) CellCollection(geometry) else null
+            val size = geometry.size
+            var i = 0
+            while (pos < data.length && data[pos] != '\n') {
+                if (i == geometry.cellCount) {
+                    return fail(pos, "too many cells")
+                }
+
+                val valueStart = pos
+                val value = readNumber()
+                if (value < 0 || value > size) {
+                    return fail(valueStart, "value between 0-$size expected")
+                }
+                if (!expect("|")) {
+                    return false
+                }
+
+                var note = 0
+                if (peek() == '-') {
+                    pos++
+                } else {
+                    while (true) {
+                        val numberStart = pos
+                        val number = readNumber()
+                        if (number < 0 || number > size) {
+                            return fail(numberStart, "note number between 1-$size expected")
+                        }
+                        if (number != 0) {
+                            note = note or (1 shl (number - 1))
+                        }
+                        // numbers are separated by commas, trailing comma is optional
+                        if (peek() != ',') {
+                            break
+                        }
+                        pos++
+                        if (peek() !in '0'..'9') {
+                            break
+                        }
+                    }
+                }
+                if (!expect("|")) {
+                    return false
+                }
+
+                val editable = peek()
+                if (editable != '0' && editable != '1') {
+                    return fail(pos, "editable flag expected")
+                }
+                pos++
+                if (!expect("|")) {
+                    return false
+                }
+
+                if (target != null) {
+                    target.values[i] = value.toByte()
+                    target.notes[i] = note
+                    target.setFlag(i, FLAG_EDITABLE, editable == '1')
+                }
+                i++
+            }
+            return finish(target)
+        }
+
+        private fun finish(target: CellCollection?): Boolean {
+            // single trailing line break is tolerated
+            if (peek() == '\n') {
+                pos++
+            }
+            if (pos != data.length) {
+                return fail(pos, "end of data expected")
+            }
+            if (target != null) {
+                target.validate()
+                cells = target
+            }
+            return true
+        }
+
+        private fun peek() = if (pos < data.length) data[pos] else '\u0000'
+
+        private fun skipWhitespace() {
+            while (pos < data.length && Character.isWhitespace(data[pos])) {
+                pos++
+            }
+        }
+
+        private fun expect(token: String): Boolean {
+            for (i in 0 until token.length) {
+                if (peek() != token[i]) {
+                    return fail(pos, "'" + token[i] + "' expected")
+                }
+                pos++
+            }
+            return true
+        }
+
+        // reads non-negative number, -1 if there are no digits at current position
+        private fun readNumber(): Int {
+            if (peek() !in '0'..'9') {
+                return -1
+            }
+            var number = 0
+            while (peek() in '0'..'9') {
+                if (number <= MAX_NUMBER) {
+                    number = number * 10 + (data[pos] - '0')
+                }
+                pos++
+            }
+            return number
+        }
+
+        private fun fail(offset: Int, message: String): Boolean {
+            errorOffset = offset
+            errorMessage = message
+            return false
+        }
+
+        companion object {
+            // numbers are clamped while reading, anything above this is out of range anyway
+            private const val MAX_NUMBER = 1000
+        }
+    }
+}
@@ -20,39 +20,31 @@
 
 package cz.romario.opensudoku.game
 
-import android.util.SparseArray
-
 
 /**
  * Represents group of cells which must each contain unique number.
  *
  *
  * Typical examples of instances are sudoku row, column or sector (3x3 group of cells).
+ * Group only keeps indexes of its cells, values are read from the owning [CellCollection].
  *
  * @author romario
  */
-class CellGroup {
-    private val cells = mutableListOf<Cell>()
-
-    fun addCell(cell: Cell) {
-        cells += cell
-    }
-
-    fun validate(): Boolean {
-
-        val cellsByValue = SparseArray<Cell>()
-        for (cell in cells) {
-            val value = cell.value
-            if (cellsByValue.get(value) != null) {
-                cell.isValid = false
-                cellsByValue.get(value).isValid = false
-            } else {
-                cellsByValue.put(value, cell)
-            }
-        }
-
-        return cells.none { !it.isValid }
-    }
-
-    operator fun contains(value: Int): Boolean = cells.any { it.value == value }
+class CellGroup internal constructor(private val cellCollection: CellCollection,
+                                     private val groupIndex: Int,
+                                     internal val cellIndexes: IntArray) {
+
+    /**
+     * Returns true if no value is used more than once within this group.
+     */
+    val isValid: Boolean
+        get() = (1..cellCollection.size).none { cellCollection.getGroupValueCount(groupIndex, it) > 1 }
+
+    /**
+     * Bit mask of values used in this group, bit 0 stands for value 1.
+     */
+    val valuesMask: Int
+        get() = cellCollection.getGroupValueMask(groupIndex)
+
+    operator fun contains(value: Int): Boolean = cellCollection.getGroupValueCount(groupIndex, value) > 0
 }
@@ -0,0 +1,205 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+
+package cz.romario.opensudoku.game
+
+/**
+ * Note attached to cell. This object is immutable by design.
+ *
+ * Noted numbers are kept as a bit mask (bit 0 for number 1, ..., bit 8 for number 9). All 512
+ * possible notes of the standard board are created up front, so none of the operations below
+ * allocate for them. Notes with numbers above 9 (larger boards) are created on demand.
+ *
+ * @author romario
+ */
+class CellNote private constructor(val notesMask: Int) {
+
+    val isEmpty: Boolean
+        get() = notesMask == 0
+
+    /**
+     * Numbers noted in this note in ascending order. Creates a new set on each call, use
+     * [hasNumber] or [notesMask] on hot paths.
+     */
+    val notedNumbers: Set<Int>
+        get() {
+            val numbers = LinkedHashSet<Int>()
+            var mask = notesMask
+            while (mask != 0) {
+                numbers.add(Integer.numberOfTrailingZeros(mask) + 1)
+                mask = mask and (mask - 1)
+            }
+            return numbers
+        }
+
+    /**
+     * Returns true if given number is noted.
+     *
+     * @param number Number to check, 1-9 (up to board size).
+     */
+    fun hasNumber(number: Int) = notesMask and bit(number) != 0
+
+    /**
+     * Appends string representation of this object to the given `Appendable`.
+     * You can later recreate object from this string by calling [.deserialize].
+     *
+     * @param data data to be serialized
+     */
+    fun serialize(data: Appendable) {
+        serializeMask(notesMask, data)
+    }
+
+    fun serialize() = StringBuilder().apply { serialize(this) }.toString()
+
+    /**
+     * Toggles noted number: if number is already noted, it will be removed otherwise it will be added.
+     *
+     * @param number Number to toggle.
+     * @return CellNote instance with changes.
+     */
+    fun toggleNumber(number: Int) = valueOf(notesMask xor bit(number))
+
+    /**
+     * Adds number to the cell's note (if not present already).
+     *
+     * @param number Number to add.
+     * @return CellNote instance with changes.
+     */
+    fun addNumber(number: Int) = valueOf(notesMask or bit(number))
+
+    /**
+     * Removes number from the cell's note (if present).
+     *
+     * @param number Number to remove.
+     * @return CellNote instance with changes.
+     */
+    fun removeNumber(number: Int) = valueOf(notesMask and bit(number).inv())
+
+    fun clear() = EMPTY
+
+    override fun equals(other: Any?) = other is CellNote && other.notesMask == notesMask
+
+    override fun hashCode() = notesMask
+
+    override fun toString() = serialize()
+
+    companion object {
+
+        private const val INTERNED_MASK = (1 shl 9) - 1
+        private const val ALL_MASK = (1 shl BoardGeometry.MAX_SIZE) - 1
+
+        private val NOTES = Array(INTERNED_MASK + 1) { CellNote(it) }
+
+        val EMPTY = NOTES[0]
+
+        private fun bit(number: Int): Int {
+            if (number < 1 || number > BoardGeometry.MAX_SIZE) {
+                throw IllegalArgumentException("Number must be between 1-" + BoardGeometry.MAX_SIZE + ".")
+            }
+            return 1 shl (number - 1)
+        }
+
+        /**
+         * Returns note for given bit mask (bit 0 stands for number 1).
+         *
+         * @param notesMask Bit mask of noted numbers.
+         */
+        fun valueOf(notesMask: Int): CellNote {
+            if (notesMask < 0 || notesMask > ALL_MASK) {
+                throw IllegalArgumentException("Invalid notes mask: " + notesMask)
+            }
+            return if (notesMask <= INTERNED_MASK) NOTES[notesMask] else CellNote(notesMask)
+        }
+
+        /**
+         * Appends string representation of given note mask without creating any objects.
+         */
+        internal fun serializeMask(notesMask: Int, data: Appendable) {
+            if (notesMask == 0) {
+                data.append('-')
+            } else {
+                var mask = notesMask
+                while (mask != 0) {
+                    appendNumber(Integer.numberOfTrailingZeros(mask) + 1, data)
+                    mask = mask and (mask - 1)
+                    if (mask != 0) {
+                        data.append(',')
+                    }
+                }
+            }
+        }
+
+        /**
+         * Appends cell value or noted number (0-99) digit by digit.
+         */
+        internal fun appendNumber(number: Int, data: Appendable) {
+            if (number >= 10) {
+                data.append('0' + number / 10)
+            }
+            data.append('0' + number % 10)
+        }
+
+        /**
+         * Creates instance from given string (string which has been
+         * created by [.serialize] or [.serialize] method).
+         * earlier.
+         *
+         * @param note notes to store, comma separated list of integers, or hyphen if missing
+         */
+        fun deserialize(note: String?): CellNote {
+            if (note == null) {
+                return EMPTY
+            }
+
+            var mask = 0
+            var number = 0
+            for (i in 0..note.length) {
+                val ch = if (i < note.length) note[i] else ','
+                when (ch) {
+                    in '0'..'9' -> number = number * 10 + (ch - '0')
+                    ',' -> {
+                        if (number != 0) {
+                            mask = mask or bit(number)
+                        }
+                        number = 0
+                    }
+                    '-' -> {
+                    }
+                    else -> throw IllegalArgumentException("Cannot deserialize note: " + note)
+                }
+            }
+            return valueOf(mask)
+        }
+
+        /**
+         * Creates note instance from given `Integer` array.
+         *
+         * @param notedNums Array of integers, which should be part of note.
+         * @return Note instance.
+         */
+        fun fromIntArray(notedNums: Array<Int>): CellNote {
+            var mask = 0
+            for (number in notedNums) {
+                mask = mask or bit(number)
+            }
+            return valueOf(mask)
+        }
+    }
+}
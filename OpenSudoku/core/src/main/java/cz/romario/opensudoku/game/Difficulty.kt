@@ -0,0 +1,44 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+
+
+package cz.romario.opensudoku.game
+
+/**
+ * Difficulty of puzzle, given by the hardest technique [LogicalSolver] needs to solve it.
+ */
+enum class Difficulty {
+    /**
+     * Puzzle can be solved with naked and hidden singles only.
+     */
+    EASY,
+    /**
+     * Puzzle needs locked candidates (pointing, claiming) or naked or hidden pairs.
+     */
+    MEDIUM,
+    /**
+     * Puzzle needs triples, X-Wing or XY-Wing.
+     */
+    HARD,
+    /**
+     * Puzzle needs Swordfish or simple coloring.
+     */
+    EXPERT
+}
@@ -0,0 +1,244 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+
+
+package cz.romario.opensudoku.game
+
+/**
+ * Solver using Knuth's Algorithm X with dancing links on the exact cover matrix of the board.
+ * Matrix has one column for each cell (cell must be filled) and one for each group and value
+ * (value must appear in the group), which is 324 columns for 9x9 board. Each row stands for one
+ * value in one cell.
+ *
+ * The whole matrix is built once in preallocated node arrays. Given values are covered before
+ * the search and uncovered afterwards, so the matrix is reused by all solves without allocating.
+ */
+class DlxSolver(override val geometry: BoardGeometry) : Solver {
+
+    constructor() : this(BoardGeometry.STANDARD)
+
+    private val size = geometry.size
+    private val cellCount = geometry.cellCount
+    private val columnCount = cellCount + geometry.groupCount * size
+
+    // Node 0 is the root, nodes 1..columnCount are column headers, followed by four nodes
+    // for each row of the matrix.
+    private val nodeCount = 1 + columnCount + 4 * cellCount * size
+    private val left = IntArray(nodeCount)
+    private val right = IntArray(nodeCount)
+    private val up = IntArray(nodeCount)
+    private val down = IntArray(nodeCount)
+    private val column = IntArray(nodeCount)
+    private val row = IntArray(nodeCount)
+
+    // number of rows in each column, indexed by header node
+    private val columnSize = IntArray(1 + columnCount)
+
+    // columns covered by given values, in order of covering
+    private val givenColumns = IntArray(columnCount)
+    private var givenColumnCount = 0
+    private val covered = BooleanArray(1 + columnCount)
+
+    // rows chosen at each search depth
+    private val chosen = IntArray(cellCount)
+
+    private var givens: IntArray? = null
+    private var limit = 0
+    private var solutionCount = 0
+    private var solution: IntArray? = null
+
+    init {
+        for (c in 0..columnCount) {
+            left[c] = if (c == 0) columnCount else c - 1
+            right[c] = if (c == columnCount) 0 else c + 1
+            up[c] = c
+            down[c] = c
+            column[c] = c
+        }
+
+        val cellGroups = geometry.cellGroups
+        var node = 1 + columnCount
+        for (r in 0 until cellCount * size) {
+            val cell = r / size
+            val value = r % size
+            val first = node
+            appendNode(node++, r, 1 + cell)
+            for (k in 0 until 3) {
+                appendNode(node++, r, 1 + cellCount + cellGroups[cell * 3 + k] * size + value)
+            }
+            for (n in first until node) {
+                left[n] = if (n == first) node - 1 else n - 1
+                right[n] = if (n == node - 1) first else n + 1
+            }
+        }
+    }
+
+    private fun appendNode(node: Int, r: Int, c: Int) {
+        row[node] = r
+        column[node] = c
+        up[node] = up[c]
+        down[node] = c
+        down[up[c]] = node
+        up[c] = node
+        columnSize[c]++
+    }
+
+    override fun solve(values: IntArray): IntArray? {
+        search(values, 1)
+        return solution
+    }
+
+    override fun countSolutions(values: IntArray, limit: Int): Int {
+        search(values, limit)
+        return solutionCount
+    }
+
+    private fun search(values: IntArray, limit: Int) {
+        if (values.size != cellCount) {
+            throw IllegalArgumentException("Board must have " + cellCount + " cells.")
+        }
+        for (value in values) {
+            if (value < 0 || value > size) {
+                throw IllegalArgumentException("Value must be between 0-" + size + ".")
+            }
+        }
+        this.limit = limit
+        solutionCount = 0
+        solution = null
+        givens = values
+
+        if (coverGivens(values) && limit > 0) {
+            search(0)
+        }
+        while (givenColumnCount > 0) {
+            val c = givenColumns[--givenColumnCount]
+            covered[c] = false
+            uncover(c)
+        }
+        givens = null
+    }
+
+    /**
+     * Covers columns of rows selected by given values.
+     *
+     * @return False if two given values collide.
+     */
+    private fun coverGivens(values: IntArray): Boolean {
+        for (i in 0 until cellCount) {
+            if (values[i] != 0) {
+                // first node of the row is the one in the cell's column
+                val first = 1 + columnCount + 4 * (i * size + values[i] - 1)
+                var n = first
+                do {
+                    val c = column[n]
+                    if (covered[c]) {
+                        return false
+                    }
+                    cover(c)
+                    covered[c] = true
+                    givenColumns[givenColumnCount++] = c
+                    n = right[n]
+                } while (n != first)
+            }
+        }
+        return true
+    }
+
+    private fun search(depth: Int) {
+        if (right[0] == 0) {
+            solutionCount++
+            if (solution == null) {
+                val result = givens!!.copyOf()
+                for (k in 0 until depth) {
+                    result[chosen[k] / size] = chosen[k] % size + 1
+                }
+                solution = result
+            }
+            return
+        }
+
+        // branch on the column with the fewest rows
+        var c = right[0]
+        var best = c
+        while (c != 0) {
+            if (columnSize[c] < columnSize[best]) {
+                best = c
+                if (columnSize[c] <= 1) {
+                    break
+                }
+            }
+            c = right[c]
+        }
+        if (columnSize[best] == 0) {
+            return
+        }
+
+        cover(best)
+        var r = down[best]
+        while (r != best && solutionCount < limit) {
+            chosen[depth] = row[r]
+            var n = right[r]
+            while (n != r) {
+                cover(column[n])
+                n = right[n]
+            }
+            search(depth + 1)
+            n = left[r]
+            while (n != r) {
+                uncover(column[n])
+                n = left[n]
+            }
+            r = down[r]
+        }
+        uncover(best)
+    }
+
+    private fun cover(c: Int) {
+        right[left[c]] = right[c]
+        left[right[c]] = left[c]
+        var i = down[c]
+        while (i != c) {
+            var j = right[i]
+            while (j != i) {
+                down[up[j]] = down[j]
+                up[down[j]] = up[j]
+                columnSize[column[j]]--
+                j = right[j]
+            }
+            i = down[i]
+        }
+    }
+
+    private fun uncover(c: Int) {
+        var i = up[c]
+        while (i != c) {
+            var j = left[i]
+            while (j != i) {
+                columnSize[column[j]]++
+                down[up[j]] = j
+                up[down[j]] = j
+                j = left[j]
+            }
+            i = up[i]
+        }
+        right[left[c]] = c
+        left[right[c]] = c
+    }
+}
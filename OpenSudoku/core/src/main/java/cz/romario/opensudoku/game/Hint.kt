@@ -0,0 +1,55 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+
+package cz.romario.opensudoku.game
+
+/**
+ * Next logical step for some position, found by [HintFinder].
+ */
+class Hint internal constructor(
+        val technique: LogicalSolver.Technique,
+        /**
+         * Value placed by single, or value eliminated by the step, 0 if subset eliminates
+         * more values (see [SolveTrace.getValue]).
+         */
+        val value: Int,
+        /**
+         * Cells forming the pattern of the step, for singles the cell to fill in.
+         */
+        val cells: IntArray,
+        /**
+         * Cells losing candidates and candidates they lose (bit 0 stands for value 1).
+         */
+        val eliminationCells: IntArray,
+        val eliminationMasks: IntArray) {
+
+    /**
+     * True if the step fills in a cell, otherwise it only eliminates candidates.
+     */
+    val isPlacement: Boolean
+        get() = eliminationCells.isEmpty()
+
+    internal constructor(trace: SolveTrace, step: Int) : this(
+            trace.getTechnique(step),
+            trace.getValue(step),
+            IntArray(trace.getCellCount(step)) { trace.getCell(step, it) },
+            IntArray(trace.getEliminationCount(step)) { trace.getEliminationCell(step, it) },
+            IntArray(trace.getEliminationCount(step)) { trace.getEliminationMask(step, it) })
+}
@@ -0,0 +1,141 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+
+package cz.romario.opensudoku.game
+
+import java.util.*
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+
+/**
+ * Finds next logical step for the current position ahead of time. Call [update] after each
+ * move, step is searched on a low priority background thread, so [requestHint] usually gets
+ * the hint immediately. Search never runs on the thread which requests the hint.
+ *
+ * Only values of cells are considered (not notes), so position is looked up again only when
+ * some value changes. Work for a position which has been replaced by a newer one is dropped;
+ * search which is already running is let finish (single step takes milliseconds), but its
+ * result is discarded.
+ */
+class HintFinder(val geometry: BoardGeometry) {
+
+    interface OnHintListener {
+        /**
+         * Called with hint for the requested position, null if no technique applies (or board
+         * breaks the rules).
+         */
+        fun onHint(hint: Hint?)
+    }
+
+    private val executor: ExecutorService = Executors.newSingleThreadExecutor { r ->
+        val thread = Thread(r, "HintFinder")
+        thread.priority = Thread.MIN_PRIORITY
+        thread.isDaemon = true
+        thread
+    }
+
+    // used by the background thread only
+    private val solver = LogicalSolver(geometry)
+    private val trace = SolveTrace()
+
+    // last position passed to update, background thread checks it to drop stale results
+    @Volatile
+    private var requested: BoardSnapshot? = null
+    private var pending: Future<*>? = null
+
+    // result of the last search and request waiting for it, guarded by lock
+    private val lock = Any()
+    private var result: Result? = null
+    private var waiting: Waiting? = null
+
+    private class Result(val snapshot: BoardSnapshot, val hint: Hint?)
+
+    private class Waiting(val snapshot: BoardSnapshot, val listener: OnHintListener)
+
+    /**
+     * Starts looking for a hint for the position in background. Search for the previous
+     * position is cancelled.
+     */
+    fun update(snapshot: BoardSnapshot) {
+        if (snapshot.geometry != geometry) {
+            throw IllegalArgumentException("Hint finder is set up for " + geometry + " boards.")
+        }
+        val last = requested
+        if (last != null && hasSameValues(last, snapshot)) {
+            return
+        }
+        requested = snapshot
+        // task which has not started yet is dropped
+        pending?.cancel(false)
+        pending = executor.submit {
+            val hint = findHint(snapshot)
+            val listener = synchronized(lock) {
+                if (requested !== snapshot) {
+                    return@synchronized null
+                }
+                result = Result(snapshot, hint)
+                val waiting = waiting
+                if (waiting == null || !hasSameValues(waiting.snapshot, snapshot)) {
+                    return@synchronized null
+                }
+                this.waiting = null
+                waiting.listener
+            }
+            listener?.onHint(hint)
+        }
+    }
+
+    /**
+     * Gets hint for the position. If the background search for it has finished, listener
+     * is called right away on the calling thread. Otherwise search is started (unless it
+     * is already running) and listener is called on the background thread when it finishes;
+     * it is not called at all if another position is requested first.
+     */
+    fun requestHint(snapshot: BoardSnapshot, listener: OnHintListener) {
+        val ready = synchronized(lock) {
+            val result = result
+            if (result == null || !hasSameValues(result.snapshot, snapshot)) {
+                waiting = Waiting(snapshot, listener)
+                return@synchronized null
+            }
+            result
+        }
+        if (ready != null) {
+            listener.onHint(ready.hint)
+        } else {
+            update(snapshot)
+        }
+    }
+
+    /**
+     * Stops the background thread, finder cannot be updated afterwards.
+     */
+    fun shutdown() {
+        executor.shutdownNow()
+    }
+
+    private fun findHint(snapshot: BoardSnapshot): Hint? {
+        val values = IntArray(geometry.cellCount) { snapshot.getValue(it) }
+        return if (solver.findNextStep(values, trace)) Hint(trace, 0) else null
+    }
+
+    private fun hasSameValues(a: BoardSnapshot, b: BoardSnapshot) = Arrays.equals(a.values, b.values)
+}
@@ -0,0 +1,676 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+
+
+package cz.romario.opensudoku.game
+
+import java.util.*
+
+/**
+ * Solves puzzles the way people do, applying techniques on candidate masks of cells. After each
+ * deduction solver starts over with the easiest technique, so puzzle is graded by the hardest
+ * technique it really needs.
+ *
+ * Boards are given as values in row-major order, 0 meaning empty cell. Instance keeps its
+ * work buffers between calls, so it is not thread safe; create one instance per thread.
+ */
+class LogicalSolver(val geometry: BoardGeometry) {
+
+    /**
+     * Solving techniques, from the easiest one.
+     */
+    enum class Technique(val difficulty: Difficulty) {
+        NAKED_SINGLE(Difficulty.EASY),
+        HIDDEN_SINGLE(Difficulty.EASY),
+        POINTING(Difficulty.MEDIUM),
+        CLAIMING(Difficulty.MEDIUM),
+        NAKED_PAIR(Difficulty.MEDIUM),
+        HIDDEN_PAIR(Difficulty.MEDIUM),
+        NAKED_TRIPLE(Difficulty.HARD),
+        HIDDEN_TRIPLE(Difficulty.HARD),
+        X_WING(Difficulty.HARD),
+        XY_WING(Difficulty.HARD),
+        SWORDFISH(Difficulty.EXPERT),
+        SIMPLE_COLORING(Difficulty.EXPERT)
+    }
+
+    constructor() : this(BoardGeometry.STANDARD)
+
+    private val size = geometry.size
+    private val cellCount = geometry.cellCount
+    private val allValues = geometry.allValuesMask
+    private val cellGroups = geometry.cellGroups
+    private val groupCells = geometry.rowCells + geometry.columnCells + geometry.sectorCells
+    private val peerCount = geometry.peerCount
+    private val peers = geometry.peers
+
+    private val values = IntArray(cellCount)
+    // candidates of each cell, 0 for filled cells
+    private val candidates = IntArray(cellCount)
+    private var emptyCount = 0
+    // set when some cell or value was left without candidates
+    private var broken = false
+
+    private var trace: SolveTrace? = null
+
+    /**
+     * Hardest technique used by the last [solve] call, null if no step was needed.
+     */
+    var hardestTechnique: Technique? = null
+        private set
+
+    // cells forming pattern of the current step
+    private val patternCells = IntArray(cellCount)
+    private var patternCount = 0
+
+    // candidates to be eliminated by the current step, masks are indexed by cell
+    private val eliminationCells = IntArray(cellCount)
+    private val eliminationMasks = IntArray(cellCount)
+    private var eliminationCount = 0
+
+    // work buffers for subset and fish search
+    private val items = IntArray(size)
+    private val itemMasks = IntArray(size)
+    private val chosen = IntArray(3)
+    private var fishValue = 0
+
+    // work buffers for simple coloring: color of each cell (component * 2 + parity + 1, 0 for
+    // uncolored), colors seen in each group and count of cells with the value in each group
+    private val colors = IntArray(cellCount)
+    private val groupColors = IntArray(geometry.groupCount)
+    private val groupPositions = IntArray(geometry.groupCount)
+
+    /**
+     * Solves as much of the board as the techniques allow.
+     *
+     * @param trace If not null, it is cleared and steps made are recorded into it.
+     * @return True if board was solved completely.
+     */
+    fun solve(values: IntArray, trace: SolveTrace?): Boolean {
+        load(values, trace)
+        var progress = emptyCount > 0 && !broken
+        while (progress) {
+            progress = applyNextTechnique() && emptyCount > 0 && !broken
+        }
+        this.trace = null
+        return emptyCount == 0 && !broken
+    }
+
+    fun solve(cells: CellCollection, trace: SolveTrace?) = solve(getValues(cells), trace)
+
+    /**
+     * Finds the easiest step which can be made on the board, without solving it any further.
+     * Step is recorded into the trace; naked singles are all found in one pass, so there may
+     * be more steps, the first one is the one to show.
+     *
+     * @return False if no technique applies, board is already solved or it breaks the rules.
+     */
+    fun findNextStep(values: IntArray, trace: SolveTrace): Boolean {
+        load(values, trace)
+        val found = emptyCount > 0 && !broken && applyNextTechnique()
+        this.trace = null
+        return found && !broken
+    }
+
+    private fun load(values: IntArray, trace: SolveTrace?) {
+        if (values.size != cellCount) {
+            throw IllegalArgumentException("Board must have " + cellCount + " cells.")
+        }
+        this.trace = trace
+        trace?.clear()
+        hardestTechnique = null
+        broken = false
+        emptyCount = cellCount
+        Arrays.fill(this.values, 0)
+        Arrays.fill(candidates, allValues)
+        for (i in 0 until cellCount) {
+            val value = values[i]
+            if (value < 0 || value > size) {
+                throw IllegalArgumentException("Value must be between 0-" + size + ".")
+            }
+            if (value != 0) {
+                if (candidates[i] and (1 shl (value - 1)) == 0) {
+                    // value is already used in cell's row, column or sector
+                    broken = true
+                    break
+                }
+                place(i, value)
+            }
+        }
+    }
+
+    /**
+     * Returns difficulty of the puzzle, or null if the puzzle cannot be solved by the known
+     * techniques (or has no solution at all).
+     */
+    fun rate(values: IntArray): Difficulty? {
+        if (!solve(values, null)) {
+            return null
+        }
+        return hardestTechnique?.difficulty ?: Difficulty.EASY
+    }
+
+    fun rate(cells: CellCollection) = rate(getValues(cells))
+
+    /**
+     * Returns value of cell after the last [solve] call, 0 if solver did not fill it in.
+     */
+    fun getValue(index: Int) = values[index]
+
+    /**
+     * Returns candidates of cell after the last [solve] call, 0 for filled cells.
+     */
+    fun getCandidates(index: Int) = candidates[index]
+
+    private fun applyNextTechnique(): Boolean {
+        return nakedSingles() ||
+                hiddenSingle() ||
+                pointing() ||
+                claiming() ||
+                nakedSubset(2) ||
+                hiddenSubset(2) ||
+                nakedSubset(3) ||
+                hiddenSubset(3) ||
+                fish(2) ||
+                xyWing() ||
+                fish(3) ||
+                simpleColoring()
+    }
+
+    private fun nakedSingles(): Boolean {
+        var found = false
+        for (i in 0 until cellCount) {
+            if (values[i] == 0) {
+                val mask = candidates[i]
+                if (mask == 0) {
+                    broken = true
+                    return false
+                }
+                if (mask and (mask - 1) == 0) {
+                    placeSingle(Technique.NAKED_SINGLE, i, Integer.numberOfTrailingZeros(mask) + 1)
+                    found = true
+                }
+            }
+        }
+        return found
+    }
+
+    private fun hiddenSingle(): Boolean {
+        for (g in groupCells.indices) {
+            val cells = groupCells[g]
+            // values possible in at least one and in at least two cells of the group
+            var once = 0
+            var twice = 0
+            var used = 0
+            for (i in cells) {
+                val mask = candidates[i]
+                twice = twice or (once and mask)
+                once = once or mask
+                if (values[i] != 0) {
+                    used = used or (1 shl (values[i] - 1))
+                }
+            }
+            if (once or used != allValues) {
+                // some value has no place left in the group
+                broken = true
+                return false
+            }
+
+            var hidden = once and twice.inv()
+            if (hidden != 0) {
+                while (hidden != 0) {
+                    val bit = hidden and -hidden
+                    hidden = hidden and (hidden - 1)
+                    for (i in cells) {
+                        if (candidates[i] and bit != 0) {
+                            placeSingle(Technique.HIDDEN_SINGLE, i, Integer.numberOfTrailingZeros(bit) + 1)
+                            break
+                        }
+                    }
+                }
+                return true
+            }
+        }
+        return false
+    }
+
+    /**
+     * Value in a sector limited to one row or column is eliminated from the rest of that line.
+     */
+    private fun pointing(): Boolean {
+        for (s in 0 until size) {
+            for (v in 0 until size) {
+                val bit = 1 shl v
+                if (findLine(2 * size + s, bit, 0) || findLine(2 * size + s, bit, 1)) {
+                    return true
+                }
+            }
+        }
+        return false
+    }
+
+    /**
+     * Value in a row or column limited to one sector is eliminated from the rest of the sector.
+     */
+    private fun claiming(): Boolean {
+        for (g in 0 until 2 * size) {
+            for (v in 0 until size) {
+                if (findLine(g, 1 shl v, 2)) {
+                    return true
+                }
+            }
+        }
+        return false
+    }
+
+    /**
+     * Checks if all cells of group with given candidate share the same group of given kind
+     * (0 row, 1 column, 2 sector) and eliminates the candidate from the rest of that group.
+     */
+    private fun findLine(group: Int, bit: Int, kind: Int): Boolean {
+        patternCount = 0
+        var line = -1
+        for (i in groupCells[group]) {
+            if (candidates[i] and bit != 0) {
+                val cellLine = cellGroups[i * 3 + kind]
+                if (line != -1 && cellLine != line) {
+                    return false
+                }
+                line = cellLine
+                patternCells[patternCount++] = i
+            }
+        }
+        if (patternCount < 2) {
+            return false
+        }
+        val groupKind = group / size
+        for (i in groupCells[line]) {
+            if (cellGroups[i * 3 + groupKind] != group) {
+                addElimination(i, bit)
+            }
+        }
+        val technique = if (kind == 2) Technique.CLAIMING else Technique.POINTING
+        return commit(technique, Integer.numberOfTrailingZeros(bit) + 1)
+    }
+
+    /**
+     * Looks for [k] cells of a group with only [k] candidates in total, these candidates are
+     * eliminated from other cells of the group.
+     */
+    private fun nakedSubset(k: Int): Boolean {
+        for (g in groupCells.indices) {
+            var count = 0
+            for (i in groupCells[g]) {
+                val bits = Integer.bitCount(candidates[i])
+                if (bits in 2..k) {
+                    items[count] = i
+                    itemMasks[count] = candidates[i]
+                    count++
+                }
+            }
+            if (count >= k && findSubset(count, k, 0, 0, 0, if (k == 2) Technique.NAKED_PAIR else Technique.NAKED_TRIPLE, g)) {
+                return true
+            }
+        }
+        return false
+    }
+
+    /**
+     * Looks for [k] values limited to the same [k] cells of a group, other candidates are
+     * eliminated from these cells.
+     */
+    private fun hiddenSubset(k: Int): Boolean {
+        for (g in groupCells.indices) {
+            val cells = groupCells[g]
+            var count = 0
+            for (v in 0 until size) {
+                val bit = 1 shl v
+                var positions = 0
+                for (p in cells.indices) {
+                    if (candidates[cells[p]] and bit != 0) {
+                        positions = positions or (1 shl p)
+                    }
+                }
+                if (Integer.bitCount(positions) in 2..k) {
+                    items[count] = v
+                    itemMasks[count] = positions
+                    count++
+                }
+            }
+            if (count >= k && findSubset(count, k, 0, 0, 0, if (k == 2) Technique.HIDDEN_PAIR else Technique.HIDDEN_TRIPLE, g)) {
+                return true
+            }
+        }
+        return false
+    }
+
+    /**
+     * Looks for [k] rows (or columns) where value is limited to the same [k] columns (or rows),
+     * value is eliminated from the rest of these columns (or rows).
+     */
+    private fun fish(k: Int): Boolean {
+        val technique = if (k == 2) Technique.X_WING else Technique.SWORDFISH
+        for (v in 0 until size) {
+            val bit = 1 shl v
+            fishValue = v
+            for (orientation in 0..1) {
+                var count = 0
+                for (line in 0 until size) {
+                    val cells = groupCells[orientation * size + line]
+                    var positions = 0
+                    for (p in cells.indices) {
+                        if (candidates[cells[p]] and bit != 0) {
+                            positions = positions or (1 shl p)
+                        }
+                    }
+                    if (Integer.bitCount(positions) in 2..k) {
+                        items[count] = line
+                        itemMasks[count] = positions
+                        count++
+                    }
+                }
+                if (count >= k && findSubset(count, k, 0, 0, 0, technique, orientation)) {
+                    return true
+                }
+            }
+        }
+        return false
+    }
+
+    /**
+     * Searches [k] of the collected items whose masks together have exactly [k] bits set.
+     */
+    private fun findSubset(count: Int, k: Int, start: Int, depth: Int, union: Int,
+                           technique: Technique, group: Int): Boolean {
+        if (depth == k) {
+            return Integer.bitCount(union) == k && eliminateSubset(k, union, technique, group)
+        }
+        for (i in start until count) {
+            val newUnion = union or itemMasks[i]
+            if (Integer.bitCount(newUnion) <= k) {
+                chosen[depth] = items[i]
+                if (findSubset(count, k, i + 1, depth + 1, newUnion, technique, group)) {
+                    return true
+                }
+            }
+        }
+        return false
+    }
+
+    private fun eliminateSubset(k: Int, union: Int, technique: Technique, group: Int): Boolean {
+        patternCount = 0
+        when (technique) {
+            Technique.NAKED_PAIR, Technique.NAKED_TRIPLE -> {
+                for (j in 0 until k) {
+                    patternCells[patternCount++] = chosen[j]
+                }
+                for (i in groupCells[group]) {
+                    if (!isChosen(i, k)) {
+                        addElimination(i, union)
+                    }
+                }
+                return commit(technique, 0)
+            }
+            Technique.HIDDEN_PAIR, Technique.HIDDEN_TRIPLE -> {
+                var valuesMask = 0
+                for (j in 0 until k) {
+                    valuesMask = valuesMask or (1 shl chosen[j])
+                }
+                val cells = groupCells[group]
+                for (p in cells.indices) {
+                    if (union and (1 shl p) != 0) {
+                        patternCells[patternCount++] = cells[p]
+                        addElimination(cells[p], valuesMask.inv())
+                    }
+                }
+                return commit(technique, 0)
+            }
+            else -> {
+                // fish, group is orientation of base lines (0 rows, 1 columns)
+                val bit = 1 shl fishValue
+                val coverOffset = (1 - group) * size
+                for (p in 0 until size) {
+                    if (union and (1 shl p) != 0) {
+                        for (i in groupCells[coverOffset + p]) {
+                            if (candidates[i] and bit != 0) {
+                                if (isChosen(cellGroups[i * 3 + group] - group * size, k)) {
+                                    patternCells[patternCount++] = i
+                                } else {
+                                    addElimination(i, bit)
+                                }
+                            }
+                        }
+                    }
+                }
+                return commit(technique, fishValue + 1)
+            }
+        }
+    }
+
+    private fun isChosen(item: Int, k: Int): Boolean {
+        for (j in 0 until k) {
+            if (chosen[j] == item) {
+                return true
+            }
+        }
+        return false
+    }
+
+    /**
+     * Pivot cell with candidates XY sees pincer cells with candidates XZ and YZ, so one of the
+     * pincers is Z and Z can be eliminated from cells seeing both pincers.
+     */
+    private fun xyWing(): Boolean {
+        for (pivot in 0 until cellCount) {
+            val pivotMask = candidates[pivot]
+            if (Integer.bitCount(pivotMask) != 2) {
+                continue
+            }
+            val peerOffset = pivot * peerCount
+            for (a in peerOffset until peerOffset + peerCount) {
+                val pincer1 = peers[a]
+                val mask1 = candidates[pincer1]
+                if (Integer.bitCount(mask1) != 2 || Integer.bitCount(mask1 and pivotMask) != 1) {
+                    continue
+                }
+                val z = mask1 and pivotMask.inv()
+                // the second pincer has the other pivot candidate and Z
+                val mask2 = (pivotMask and mask1.inv()) or z
+                for (b in a + 1 until peerOffset + peerCount) {
+                    val pincer2 = peers[b]
+                    if (candidates[pincer2] != mask2) {
+                        continue
+                    }
+                    val pincerPeerOffset = pincer1 * peerCount
+                    for (c in pincerPeerOffset until pincerPeerOffset + peerCount) {
+                        val i = peers[c]
+                        if (i != pivot && geometry.isPeer(i, pincer2)) {
+                            addElimination(i, z)
+                        }
+                    }
+                    patternCells[0] = pivot
+                    patternCells[1] = pincer1
+                    patternCells[2] = pincer2
+                    patternCount = 3
+                    if (commit(Technique.XY_WING, Integer.numberOfTrailingZeros(z) + 1)) {
+                        return true
+                    }
+                }
+            }
+        }
+        return false
+    }
+
+    /**
+     * Cells connected by conjugate pairs (the only two places of value in a group) are colored
+     * alternately, one of the colors holds the value. If two cells of the same color see each
+     * other, the value is eliminated from the whole color. Cells seeing both colors lose the
+     * value too.
+     */
+    private fun simpleColoring(): Boolean {
+        for (v in 0 until size) {
+            val bit = 1 shl v
+            for (g in groupCells.indices) {
+                var count = 0
+                for (i in groupCells[g]) {
+                    if (candidates[i] and bit != 0) {
+                        count++
+                    }
+                }
+                groupPositions[g] = count
+            }
+            Arrays.fill(colors, 0)
+
+            var component = 0
+            for (start in 0 until cellCount) {
+                if (candidates[start] and bit == 0 || colors[start] != 0 || !hasConjugate(start)) {
+                    continue
+                }
+
+                // color the component reachable from start, pattern cells serve as queue
+                val color = component * 2 + 1
+                component++
+                patternCount = 0
+                colors[start] = color
+                patternCells[patternCount++] = start
+                var head = 0
+                while (head < patternCount) {
+                    val cell = patternCells[head++]
+                    for (k in 0 until 3) {
+                        val g = cellGroups[cell * 3 + k]
+                        if (groupPositions[g] != 2) {
+                            continue
+                        }
+                        for (i in groupCells[g]) {
+                            if (i != cell && candidates[i] and bit != 0 && colors[i] == 0) {
+                                colors[i] = if (colors[cell] == color) color + 1 else color
+                                patternCells[patternCount++] = i
+                            }
+                        }
+                    }
+                }
+
+                // colors seen in each group, bit 0 for the first color, bit 1 for the second
+                Arrays.fill(groupColors, 0)
+                var wrapColor = 0
+                for (j in 0 until patternCount) {
+                    val cell = patternCells[j]
+                    val colorBit = 1 shl (colors[cell] - color)
+                    for (k in 0 until 3) {
+                        val g = cellGroups[cell * 3 + k]
+                        if (groupColors[g] and colorBit != 0) {
+                            wrapColor = colors[cell]
+                        }
+                        groupColors[g] = groupColors[g] or colorBit
+                    }
+                }
+
+                if (wrapColor != 0) {
+                    for (j in 0 until patternCount) {
+                        if (colors[patternCells[j]] == wrapColor) {
+                            addElimination(patternCells[j], bit)
+                        }
+                    }
+                } else {
+                    for (i in 0 until cellCount) {
+                        if (candidates[i] and bit != 0 && colors[i] != color && colors[i] != color + 1 &&
+                                groupColors[cellGroups[i * 3]] or groupColors[cellGroups[i * 3 + 1]] or
+                                        groupColors[cellGroups[i * 3 + 2]] == 3) {
+                            addElimination(i, bit)
+                        }
+                    }
+                }
+                if (commit(Technique.SIMPLE_COLORING, v + 1)) {
+                    return true
+                }
+            }
+        }
+        return false
+    }
+
+    private fun hasConjugate(index: Int): Boolean {
+        return groupPositions[cellGroups[index * 3]] == 2 ||
+                groupPositions[cellGroups[index * 3 + 1]] == 2 ||
+                groupPositions[cellGroups[index * 3 + 2]] == 2
+    }
+
+    private fun addElimination(index: Int, mask: Int) {
+        val eliminated = candidates[index] and mask
+        if (eliminated != 0) {
+            if (eliminationMasks[index] == 0) {
+                eliminationCells[eliminationCount++] = index
+            }
+            eliminationMasks[index] = eliminationMasks[index] or eliminated
+        }
+    }
+
+    /**
+     * Applies and records eliminations collected for the current step.
+     *
+     * @return False if the step eliminates nothing.
+     */
+    private fun commit(technique: Technique, value: Int): Boolean {
+        if (eliminationCount == 0) {
+            return false
+        }
+        trace?.addStep(technique, value, patternCells, patternCount,
+                eliminationCells, eliminationMasks, eliminationCount)
+        for (j in 0 until eliminationCount) {
+            val i = eliminationCells[j]
+            candidates[i] = candidates[i] and eliminationMasks[i].inv()
+            eliminationMasks[i] = 0
+        }
+        eliminationCount = 0
+        useTechnique(technique)
+        return true
+    }
+
+    private fun placeSingle(technique: Technique, index: Int, value: Int) {
+        patternCells[0] = index
+        trace?.addStep(technique, value, patternCells, 1, eliminationCells, eliminationMasks, 0)
+        place(index, value)
+        useTechnique(technique)
+    }
+
+    private fun place(index: Int, value: Int) {
+        values[index] = value
+        candidates[index] = 0
+        emptyCount--
+        val bit = (1 shl (value - 1)).inv()
+        val peerOffset = index * peerCount
+        for (k in peerOffset until peerOffset + peerCount) {
+            candidates[peers[k]] = candidates[peers[k]] and bit
+        }
+    }
+
+    private fun useTechnique(technique: Technique) {
+        val hardest = hardestTechnique
+        if (hardest == null || technique > hardest) {
+            hardestTechnique = technique
+        }
+    }
+
+    private fun getValues(cells: CellCollection): IntArray {
+        if (cells.geometry != geometry) {
+            throw IllegalArgumentException("Solver is set up for " + geometry + " boards.")
+        }
+        return IntArray(cellCount) { cells.getValue(it) }
+    }
+}
@@ -0,0 +1,84 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+
+package cz.romario.opensudoku.game
+
+import java.util.*
+
+/**
+ * [StateBundle] kept in memory, for saving state outside of Android.
+ */
+class MapStateBundle : StateBundle {
+
+    private val values = HashMap<String, Any?>()
+
+    override fun containsKey(key: String) = values.containsKey(key)
+
+    override fun putBoolean(key: String, value: Boolean) {
+        values[key] = value
+    }
+
+    override fun getBoolean(key: String) = values[key] as? Boolean ?: false
+
+    override fun putInt(key: String, value: Int) {
+        values[key] = value
+    }
+
+    override fun getInt(key: String) = values[key] as? Int ?: 0
+
+    override fun putLong(key: String, value: Long) {
+        values[key] = value
+    }
+
+    override fun getLong(key: String) = values[key] as? Long ?: 0L
+
+    override fun putString(key: String, value: String?) {
+        values[key] = value
+    }
+
+    override fun getString(key: String) = values[key] as? String
+
+    override fun putIntArray(key: String, value: IntArray?) {
+        values[key] = value?.copyOf()
+    }
+
+    override fun getIntArray(key: String) = (values[key] as? IntArray)?.copyOf()
+
+    override fun putStringArray(key: String, value: Array<String>?) {
+        values[key] = value?.copyOf()
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    override fun getStringArray(key: String) = (values[key] as? Array<String>)?.copyOf()
+
+    override fun putByteArray(key: String, value: ByteArray?) {
+        values[key] = value?.copyOf()
+    }
+
+    override fun getByteArray(key: String) = (values[key] as? ByteArray)?.copyOf()
+
+    override fun putBundle(key: String): StateBundle {
+        val bundle = MapStateBundle()
+        values[key] = bundle
+        return bundle
+    }
+
+    override fun getBundle(key: String) = values[key] as? StateBundle
+}
@@ -0,0 +1,247 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+
+package cz.romario.opensudoku.game
+
+import java.util.*
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Solver which searches on more threads, meant for large boards where single search can take
+ * seconds. Search tree is split at shallow branch points (branching on the cell with the fewest
+ * candidates, level by level) into many subtrees, workers take subtrees from a shared queue
+ * and search them with [BitboardSolver], so thread which gets easy subtrees simply takes more
+ * of them. Once [countSolutions] limit is reached, all workers are stopped through token of
+ * the search, which has caller's token as its parent.
+ *
+ * Workers run on a pool shared by all instances, the calling thread works too. Single instance
+ * must not be used by more threads at once, like any other [Solver].
+ */
+class ParallelSolver @JvmOverloads constructor(
+        override val geometry: BoardGeometry,
+        private val threadCount: Int = DEFAULT_THREAD_COUNT) : CancellableSolver {
+
+    private val size = geometry.size
+    private val cellCount = geometry.cellCount
+    private val allValues = geometry.allValuesMask
+    private val cellGroups = geometry.cellGroups
+
+    // solvers of each worker, created once and reused by later searches
+    private val solvers = Array(threadCount) { BitboardSolver(geometry) }
+
+    private val solutions = ArrayList<IntArray>(CancellableSolver.MAX_KEPT_SOLUTIONS)
+    private var solutionCount = 0
+
+    init {
+        if (threadCount < 1) {
+            throw IllegalArgumentException("Thread count must be at least 1.")
+        }
+    }
+
+    override fun solve(values: IntArray): IntArray? {
+        search(values, 1, null)
+        return if (solutions.isEmpty()) null else solutions[0]
+    }
+
+    override fun countSolutions(values: IntArray, limit: Int): Int {
+        search(values, limit, null)
+        return solutionCount
+    }
+
+    override fun countSolutions(values: IntArray, limit: Int, token: CancelToken): Int {
+        search(values, limit, token)
+        return solutionCount
+    }
+
+    override fun getSolution(index: Int): IntArray = solutions[index]
+
+    private fun search(values: IntArray, limit: Int, token: CancelToken?) {
+        if (values.size != cellCount) {
+            throw IllegalArgumentException("Board must have " + cellCount + " cells.")
+        }
+        for (value in values) {
+            if (value < 0 || value > size) {
+                throw IllegalArgumentException("Value must be between 0-" + size + ".")
+            }
+        }
+        solutions.clear()
+        solutionCount = 0
+        if (limit <= 0) {
+            return
+        }
+
+        // stops workers of this search only, so it is cancelled also when the limit is reached
+        val stop = CancelToken(token)
+        val queue = ConcurrentLinkedQueue<IntArray>(split(values, threadCount * TASKS_PER_THREAD))
+        val found = AtomicInteger()
+        val futures = ArrayList<Future<*>>(threadCount - 1)
+        for (i in 1 until threadCount) {
+            val solver = solvers[i]
+            futures.add(executor.submit { work(solver, queue, found, limit, stop) })
+        }
+        var failure: Throwable? = null
+        try {
+            work(solvers[0], queue, found, limit, stop)
+        } catch (e: RuntimeException) {
+            failure = e
+            stop.cancel()
+        }
+        // workers use solvers of this instance, so all of them must finish before returning
+        var interrupted = false
+        for (future in futures) {
+            while (true) {
+                try {
+                    future.get()
+                    break
+                } catch (e: ExecutionException) {
+                    if (failure == null) {
+                        failure = e.cause
+                    }
+                    stop.cancel()
+                    break
+                } catch (e: InterruptedException) {
+                    interrupted = true
+                    stop.cancel()
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt()
+        }
+        if (failure != null) {
+            throw failure as? RuntimeException ?: RuntimeException(failure)
+        }
+        solutionCount = Math.min(found.get(), limit)
+    }
+
+    private fun work(solver: BitboardSolver, queue: Queue<IntArray>, found: AtomicInteger, limit: Int,
+                     stop: CancelToken) {
+        while (true) {
+            val board = queue.poll() ?: return
+            // search may have been stopped while this worker was taking the board
+            val remaining = limit - found.get()
+            if (remaining <= 0 || stop.isCancelled) {
+                return
+            }
+            val count = solver.countSolutions(board, remaining, stop)
+            if (count > 0) {
+                synchronized(solutions) {
+                    var i = 0
+                    while (i < count && solutions.size < CancellableSolver.MAX_KEPT_SOLUTIONS) {
+                        solutions.add(solver.getSolution(i++))
+                    }
+                }
+                if (found.addAndGet(count) >= limit) {
+                    stop.cancel()
+                }
+            }
+        }
+    }
+
+    /**
+     * Splits board into at least [minCount] boards (unless the tree is too small), each with
+     * one more cell filled in than its parent. Boards where some cell has no candidate left are
+     * dropped, filled boards are kept as they are for workers to check.
+     */
+    private fun split(values: IntArray, minCount: Int): List<IntArray> {
+        var boards = ArrayList<IntArray>()
+        boards.add(values)
+        val used = IntArray(geometry.groupCount)
+        while (boards.size < minCount) {
+            val next = ArrayList<IntArray>(boards.size * 2)
+            var expanded = false
+            for (board in boards) {
+                Arrays.fill(used, 0)
+                for (i in 0 until cellCount) {
+                    if (board[i] != 0) {
+                        val bit = 1 shl (board[i] - 1)
+                        for (k in i * 3 until i * 3 + 3) {
+                            used[cellGroups[k]] = used[cellGroups[k]] or bit
+                        }
+                    }
+                }
+
+                var bestCell = -1
+                var bestCandidates = 0
+                var bestCount = Int.MAX_VALUE
+                for (i in 0 until cellCount) {
+                    if (board[i] == 0) {
+                        val candidates = allValues and
+                                (used[cellGroups[i * 3]] or used[cellGroups[i * 3 + 1]] or used[cellGroups[i * 3 + 2]]).inv()
+                        val count = Integer.bitCount(candidates)
+                        if (count < bestCount) {
+                            bestCell = i
+                            bestCandidates = candidates
+                            bestCount = count
+                            if (count <= 1) {
+                                break
+                            }
+                        }
+                    }
+                }
+
+                if (bestCell == -1) {
+                    next.add(board)
+                    continue
+                }
+                expanded = true
+                var candidates = bestCandidates
+                while (candidates != 0) {
+                    val child = board.copyOf()
+                    child[bestCell] = Integer.numberOfTrailingZeros(candidates) + 1
+                    candidates = candidates and (candidates - 1)
+                    next.add(child)
+                }
+            }
+            boards = next
+            if (!expanded) {
+                break
+            }
+        }
+        return boards
+    }
+
+    companion object {
+        /**
+         * Smallest board size for which [CancellableSolver.create] uses this solver, smaller
+         * boards are solved faster than work can be split.
+         */
+        const val MIN_SIZE = 16
+
+        @JvmField
+        val DEFAULT_THREAD_COUNT = Runtime.getRuntime().availableProcessors()
+
+        // more subtrees than threads, so threads which finish early have work to take
+        private const val TASKS_PER_THREAD = 8
+
+        private val executor: ExecutorService by lazy {
+            Executors.newCachedThreadPool { r ->
+                val thread = Thread(r, "ParallelSolver")
+                thread.isDaemon = true
+                thread
+            }
+        }
+    }
+}
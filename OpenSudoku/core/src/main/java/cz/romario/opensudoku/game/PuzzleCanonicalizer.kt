@@ -0,0 +1,252 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+
+package cz.romario.opensudoku.game
+
+import java.util.*
+
+/**
+ * Maps 9x9 puzzles to canonical form, which is the same for all puzzles equivalent up to
+ * digit relabelling, permutation of rows within bands, columns within stacks, band and stack
+ * swaps and transposition. Only given (not editable) cells are taken into account.
+ *
+ * Canonical form is the lexicographically smallest 81 digit string obtainable by these
+ * transformations, where digits are relabelled in order of their first appearance and empty
+ * cells (written as 0) sort after all digits. It is built row by row: only transformations
+ * producing the smallest prefix so far are kept for the next row, transformations with the same
+ * future are merged.
+ *
+ * Instance holds working buffers, so it is not thread safe. Create one instance per thread
+ * and reuse it for many puzzles.
+ */
+class PuzzleCanonicalizer {
+
+    // given values of the puzzle and of its transposition, EMPTY for empty cells
+    private val grids = Array(2) { IntArray(CELL_COUNT) }
+
+    private var states = LongArray(INITIAL_CAPACITY)
+    private var nextStates = LongArray(INITIAL_CAPACITY)
+
+    private val bestRow = IntArray(SIZE)
+    private val row = IntArray(SIZE)
+    private val result = CharArray(CELL_COUNT)
+
+    /**
+     * Returns canonical form of the given puzzle as 81 digit string (0 for empty cell).
+     *
+     * @throws IllegalArgumentException If the board is not 9x9.
+     */
+    fun canonicalize(cells: CellCollection): String {
+        if (cells.geometry != BoardGeometry.STANDARD) {
+            throw IllegalArgumentException("Only " + BoardGeometry.STANDARD + " boards can be canonicalized.")
+        }
+
+        var givenCount = 0
+        for (r in 0 until SIZE) {
+            for (c in 0 until SIZE) {
+                val index = r * SIZE + c
+                val value = if (cells.isEditable(index)) 0 else cells.getValue(index)
+                val given = if (value == 0) EMPTY else value
+                grids[0][index] = given
+                grids[1][c * SIZE + r] = given
+                if (value != 0) {
+                    givenCount++
+                }
+            }
+        }
+        if (givenCount == 0) {
+            return EMPTY_FORM
+        }
+
+        // every transposition and column permutation starts with no rows used and no labels
+        var stateCount = 0
+        for (t in 0..1) {
+            for (p in 0 until COLUMN_PERMUTATION_COUNT) {
+                states[stateCount++] = encode(t, p, 0, NO_BAND, 0L)
+            }
+        }
+
+        for (k in 0 until SIZE) {
+            val bandStart = k % 3 == 0
+            var nextCount = 0
+            var hasBest = false
+
+            for (s in 0 until stateCount) {
+                val state = states[s]
+                val grid = grids[(state ushr T_SHIFT).toInt() and 1]
+                val permOffset = ((state ushr PERM_SHIFT).toInt() and PERM_MASK) * SIZE
+                val used = (state ushr USED_SHIFT).toInt() and USED_MASK
+                val band = (state ushr BAND_SHIFT).toInt() and BAND_MASK
+                val labels = state and LABELS_MASK
+
+                for (r in 0 until SIZE) {
+                    if (used and (1 shl r) != 0) {
+                        continue
+                    }
+                    val rowBand = r / 3
+                    // new band must be whole unused, inside band rows are taken from the same band
+                    if (if (bandStart) used and (BAND_ROWS shl (rowBand * 3)) != 0 else rowBand != band) {
+                        continue
+                    }
+
+                    // relabel the row, comparing it with the best row as we go
+                    var rowLabels = labels
+                    var nextLabel = countLabels(rowLabels) + 1
+                    var cmp = if (hasBest) 0 else -1
+                    for (j in 0 until SIZE) {
+                        val value = grid[r * SIZE + COLUMN_PERMUTATIONS[permOffset + j]]
+                        var label = EMPTY
+                        if (value != EMPTY) {
+                            val shift = (value - 1) * 4
+                            label = ((rowLabels ushr shift) and 0xF).toInt()
+                            if (label == 0) {
+                                label = nextLabel++
+                                rowLabels = rowLabels or (label.toLong() shl shift)
+                            }
+                        }
+                        row[j] = label
+                        if (cmp == 0) {
+                            cmp = Integer.compare(label, bestRow[j])
+                            if (cmp > 0) {
+                                break
+                            }
+                        }
+                    }
+                    if (cmp > 0) {
+                        continue
+                    }
+
+                    if (cmp < 0) {
+                        System.arraycopy(row, 0, bestRow, 0, SIZE)
+                        hasBest = true
+                        nextCount = 0
+                    }
+                    val nextBand = if (k % 3 == 2) NO_BAND else rowBand
+                    val next = encode(state.ushr(T_SHIFT).toInt() and 1, (state ushr PERM_SHIFT).toInt() and PERM_MASK,
+                            used or (1 shl r), nextBand, rowLabels)
+                    if (nextCount == nextStates.size) {
+                        nextStates = Arrays.copyOf(nextStates, nextCount * 2)
+                    }
+                    nextStates[nextCount++] = next
+                }
+            }
+            nextCount = removeDuplicates(nextStates, nextCount)
+
+            for (j in 0 until SIZE) {
+                result[k * SIZE + j] = if (bestRow[j] == EMPTY) '0' else '0' + bestRow[j]
+            }
+
+            val swap = states
+            states = nextStates
+            nextStates = swap
+            stateCount = nextCount
+        }
+
+        return String(result)
+    }
+
+    companion object {
+        private const val SIZE = 9
+        private const val CELL_COUNT = SIZE * SIZE
+        // empty cells sort after all digits
+        private const val EMPTY = 10
+
+        private val EMPTY_FORM = String(CharArray(CELL_COUNT) { '0' })
+
+        private const val INITIAL_CAPACITY = 4096
+
+        // State of one transformation being built is packed into long: labels assigned
+        // to digits (4 bits per digit), rows already used, band being filled, column
+        // permutation and transposition.
+        private const val LABELS_MASK = (1L shl 36) - 1
+        private const val USED_SHIFT = 36
+        private const val USED_MASK = (1 shl SIZE) - 1
+        private const val BAND_SHIFT = 45
+        private const val BAND_MASK = 3
+        private const val NO_BAND = 3
+        private const val PERM_SHIFT = 47
+        private const val PERM_MASK = (1 shl 11) - 1
+        private const val T_SHIFT = 58
+
+        private const val BAND_ROWS = 7
+
+        private const val COLUMN_PERMUTATION_COUNT = 6 * 6 * 6 * 6
+
+        // all permutations of 3 elements
+        private val PERMUTATIONS_3 = arrayOf(
+                intArrayOf(0, 1, 2), intArrayOf(0, 2, 1), intArrayOf(1, 0, 2),
+                intArrayOf(1, 2, 0), intArrayOf(2, 0, 1), intArrayOf(2, 1, 0))
+
+        // column permutations preserving stacks, 9 source columns for each
+        private val COLUMN_PERMUTATIONS = IntArray(COLUMN_PERMUTATION_COUNT * SIZE).apply {
+            var i = 0
+            for (stacks in PERMUTATIONS_3) {
+                for (p0 in PERMUTATIONS_3) {
+                    for (p1 in PERMUTATIONS_3) {
+                        for (p2 in PERMUTATIONS_3) {
+                            val inStack = arrayOf(p0, p1, p2)
+                            for (s in 0..2) {
+                                for (c in 0..2) {
+                                    this[i++] = stacks[s] * 3 + inStack[s][c]
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        private fun encode(t: Int, perm: Int, used: Int, band: Int, labels: Long): Long {
+            return labels or (used.toLong() shl USED_SHIFT) or (band.toLong() shl BAND_SHIFT) or
+                    (perm.toLong() shl PERM_SHIFT) or (t.toLong() shl T_SHIFT)
+        }
+
+        /**
+         * Sorts first count states and removes duplicate ones, without boxing them.
+         *
+         * @return Number of distinct states, which are at the start of the array.
+         */
+        private fun removeDuplicates(states: LongArray, count: Int): Int {
+            if (count == 0) {
+                return 0
+            }
+            Arrays.sort(states, 0, count)
+            var distinct = 1
+            for (i in 1 until count) {
+                if (states[i] != states[distinct - 1]) {
+                    states[distinct++] = states[i]
+                }
+            }
+            return distinct
+        }
+
+        private fun countLabels(labels: Long): Int {
+            var count = 0
+            var l = labels
+            while (l != 0L) {
+                if (l and 0xF != 0L) {
+                    count++
+                }
+                l = l ushr 4
+            }
+            return count
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+
+
+package cz.romario.opensudoku.game
+
+import java.util.*
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Generates puzzles with unique solution and difficulty within given range. Givens are removed
+ * from random solved board as long as solution stays unique, so generated puzzles are minimal
+ * (with respect to chosen symmetry).
+ *
+ * Puzzles are generated on all cores, but delivered to [Listener] on the thread which called
+ * [generate], so they can be stored directly in database transaction of that thread.
+ */
+class PuzzleGenerator(val geometry: BoardGeometry,
+                      val symmetry: Symmetry,
+                      val minDifficulty: Difficulty,
+                      val maxDifficulty: Difficulty) {
+
+    enum class Symmetry {
+        NONE,
+        /**
+         * Board looks the same when rotated by 180 degrees.
+         */
+        ROTATIONAL,
+        /**
+         * Board looks the same when mirrored left to right.
+         */
+        MIRROR
+    }
+
+    interface Listener {
+        /**
+         * Called for each generated puzzle.
+         *
+         * @param values Values of puzzle in row-major order, 0 for empty cell.
+         * @param solution Unique solution of the puzzle.
+         */
+        fun onPuzzleGenerated(values: IntArray, solution: IntArray, difficulty: Difficulty)
+
+        fun onProgress(generatedCount: Int, count: Int)
+    }
+
+    constructor(difficulty: Difficulty) : this(BoardGeometry.STANDARD, Symmetry.ROTATIONAL, difficulty, difficulty)
+
+    @Volatile
+    var isCancelled = false
+        private set
+
+    @Volatile
+    private var failure: RuntimeException? = null
+
+    private class Result(val values: IntArray, val solution: IntArray, val difficulty: Difficulty)
+
+    /**
+     * Stops generation, may be called from any thread, also before [generate] is called.
+     */
+    fun cancel() {
+        isCancelled = true
+    }
+
+    /**
+     * Generates [count] puzzles, blocks until they are all delivered to the listener or the
+     * generation is cancelled.
+     *
+     * @return Number of generated puzzles.
+     */
+    fun generate(count: Int, listener: Listener): Int {
+        val results = LinkedBlockingQueue<Result>()
+        val remaining = AtomicInteger(count)
+        val threadCount = Math.min(count, Runtime.getRuntime().availableProcessors())
+        val executor: ExecutorService = Executors.newFixedThreadPool(Math.max(threadCount, 1))
+        for (t in 0 until threadCount) {
+            executor.execute {
+                try {
+                    val worker = Worker(Random())
+                    while (!isCancelled && remaining.getAndDecrement() > 0) {
+                        val result = worker.generate() ?: break
+                        results.put(result)
+                    }
+                } catch (e: RuntimeException) {
+                    failure = e
+                }
+            }
+        }
+        executor.shutdown()
+
+        var generatedCount = 0
+        try {
+            while (generatedCount < count && !isCancelled) {
+                val error = failure
+                if (error != null) {
+                    throw error
+                }
+                val result = results.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS) ?: continue
+                listener.onPuzzleGenerated(result.values, result.solution, result.difficulty)
+                generatedCount++
+                listener.onProgress(generatedCount, count)
+            }
+        } catch (e: InterruptedException) {
+            Thread.currentThread().interrupt()
+        } finally {
+            isCancelled = true
+            executor.shutdownNow()
+        }
+        return generatedCount
+    }
+
+    /**
+     * Generator state of one thread.
+     */
+    private inner class Worker(private val random: Random) {
+
+        private val cellCount = geometry.cellCount
+        private val solver = BitboardSolver(geometry)
+        private val logicalSolver = LogicalSolver(geometry)
+        private val order = IntArray(cellCount) { it }
+
+        fun generate(): Result? {
+            while (!isCancelled) {
+                val solution = createSolution()
+                val puzzle = removeGivens(solution.copyOf())
+                val difficulty = logicalSolver.rate(puzzle)
+                if (difficulty != null && difficulty >= minDifficulty && difficulty <= maxDifficulty) {
+                    return Result(puzzle, solution, difficulty)
+                }
+            }
+            return null
+        }
+
+        private fun createSolution(): IntArray {
+            while (true) {
+                // random values in a few random cells make solver find a random board
+                val values = IntArray(cellCount)
+                for (k in 0 until geometry.size) {
+                    values[random.nextInt(cellCount)] = random.nextInt(geometry.size) + 1
+                }
+                val solution = solver.solve(values)
+                if (solution != null) {
+                    return solution
+                }
+            }
+        }
+
+        private fun removeGivens(puzzle: IntArray): IntArray {
+            for (i in cellCount - 1 downTo 1) {
+                val j = random.nextInt(i + 1)
+                val tmp = order[i]
+                order[i] = order[j]
+                order[j] = tmp
+            }
+
+            for (i in order) {
+                if (puzzle[i] == 0) {
+                    continue
+                }
+                val mirror = getSymmetricCell(i)
+                val value = puzzle[i]
+                val mirrorValue = puzzle[mirror]
+                puzzle[i] = 0
+                puzzle[mirror] = 0
+                if (solver.countSolutions(puzzle, 2) != 1) {
+                    puzzle[i] = value
+                    puzzle[mirror] = mirrorValue
+                }
+            }
+            return puzzle
+        }
+
+        private fun getSymmetricCell(index: Int): Int {
+            val size = geometry.size
+            return when (symmetry) {
+                Symmetry.NONE -> index
+                Symmetry.ROTATIONAL -> cellCount - 1 - index
+                Symmetry.MIRROR -> index / size * size + size - 1 - index % size
+            }
+        }
+    }
+
+    companion object {
+        private const val POLL_TIMEOUT = 100L
+    }
+}
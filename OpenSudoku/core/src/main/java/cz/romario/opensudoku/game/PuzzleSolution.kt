@@ -0,0 +1,108 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+
+
+package cz.romario.opensudoku.game
+
+/**
+ * Solution of puzzle given by its givens (values of cells which are not editable).
+ *
+ * Unique solution is stored in packed form, 4 bits per cell (high nibble first) for boards
+ * up to 15x15, so 9x9 solution takes 41 bytes, one byte per cell for larger boards.
+ */
+class PuzzleSolution private constructor(
+        /**
+         * Number of solutions: 0, 1 or [MULTIPLE] for two or more.
+         */
+        val solutionCount: Int,
+        /**
+         * Values of solved board in row-major order, null if solution is not unique.
+         */
+        val values: IntArray?) {
+
+    val isUnique: Boolean
+        get() = solutionCount == 1
+
+    /**
+     * Returns packed solution, or null if solution is not unique.
+     */
+    fun pack(): ByteArray? {
+        val values = values ?: return null
+        if (values.size > MAX_NIBBLE_CELL_COUNT) {
+            return ByteArray(values.size) { values[it].toByte() }
+        }
+        val data = ByteArray((values.size + 1) / 2)
+        for (i in values.indices) {
+            val shift = if (i % 2 == 0) 4 else 0
+            data[i / 2] = (data[i / 2].toInt() or (values[i] shl shift)).toByte()
+        }
+        return data
+    }
+
+    companion object {
+
+        const val MULTIPLE = 2
+
+        // boards up to 15x15 have values fitting in 4 bits
+        private const val MAX_NIBBLE_CELL_COUNT = 15 * 15
+
+        /**
+         * Solves givens of the board. Single search tells whether the solution is unique and
+         * keeps the solution it has found.
+         *
+         * @param solver Solver set up for geometry of the board.
+         */
+        fun find(cells: CellCollection, solver: CancellableSolver): PuzzleSolution {
+            val givens = IntArray(cells.geometry.cellCount) {
+                if (cells.isEditable(it)) 0 else cells.getValue(it)
+            }
+            val count = solver.countSolutions(givens, MULTIPLE)
+            return PuzzleSolution(count, if (count == 1) solver.getSolution(0) else null)
+        }
+
+        /**
+         * Creates unique solution which is already known, e.g. from [PuzzleGenerator], so the
+         * puzzle does not have to be solved again.
+         */
+        fun unique(values: IntArray) = PuzzleSolution(1, values)
+
+        /**
+         * Unpacks solution created by [pack].
+         *
+         * @throws IllegalArgumentException If data do not match board geometry.
+         */
+        fun unpack(data: ByteArray, geometry: BoardGeometry): IntArray {
+            val cellCount = geometry.cellCount
+            if (cellCount > MAX_NIBBLE_CELL_COUNT) {
+                if (data.size != cellCount) {
+                    throw IllegalArgumentException("Solution data corrupted.")
+                }
+                return IntArray(cellCount) { data[it].toInt() }
+            }
+            if (data.size != (cellCount + 1) / 2) {
+                throw IllegalArgumentException("Solution data corrupted.")
+            }
+            return IntArray(cellCount) {
+                val shift = if (it % 2 == 0) 4 else 0
+                (data[it / 2].toInt() shr shift) and 0x0F
+            }
+        }
+    }
+}
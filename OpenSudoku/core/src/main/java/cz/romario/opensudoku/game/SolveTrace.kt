@@ -0,0 +1,101 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+
+
+package cz.romario.opensudoku.game
+
+/**
+ * Steps made by [LogicalSolver]. Each step stores the technique used, cells forming the pattern
+ * and candidates eliminated from cells (as bit masks, bit 0 stands for value 1), or the value
+ * placed for singles.
+ *
+ * Steps are packed into a single int buffer, so trace can be cleared and reused for many puzzles
+ * without allocating.
+ */
+class SolveTrace {
+
+    // Each step is: technique, value, cell count, elimination count, cells, then pairs of
+    // eliminated cell and mask.
+    private var data = IntArray(1024)
+    private var dataSize = 0
+    private var offsets = IntArray(128)
+
+    var stepCount = 0
+        private set
+
+    fun clear() {
+        dataSize = 0
+        stepCount = 0
+    }
+
+    fun getTechnique(step: Int) = TECHNIQUES[data[offsets[step]]]
+
+    /**
+     * Returns value placed by single, value eliminated by single value technique
+     * (pointing, claiming, X-Wing, Swordfish, XY-Wing, coloring) or 0 for subsets.
+     */
+    fun getValue(step: Int) = data[offsets[step] + 1]
+
+    fun getCellCount(step: Int) = data[offsets[step] + 2]
+
+    fun getCell(step: Int, index: Int) = data[offsets[step] + HEADER_SIZE + index]
+
+    fun getEliminationCount(step: Int) = data[offsets[step] + 3]
+
+    fun getEliminationCell(step: Int, index: Int) =
+            data[offsets[step] + HEADER_SIZE + getCellCount(step) + 2 * index]
+
+    fun getEliminationMask(step: Int, index: Int) =
+            data[offsets[step] + HEADER_SIZE + getCellCount(step) + 2 * index + 1]
+
+    /**
+     * Adds step, eliminations are given as list of cells and masks indexed by cell.
+     */
+    internal fun addStep(technique: LogicalSolver.Technique, value: Int,
+                         cells: IntArray, cellCount: Int,
+                         eliminationCells: IntArray, eliminationMasks: IntArray, eliminationCount: Int) {
+        if (stepCount == offsets.size) {
+            offsets = offsets.copyOf(offsets.size * 2)
+        }
+        val stepSize = HEADER_SIZE + cellCount + 2 * eliminationCount
+        if (dataSize + stepSize > data.size) {
+            data = data.copyOf(Math.max(data.size * 2, dataSize + stepSize))
+        }
+
+        offsets[stepCount++] = dataSize
+        data[dataSize++] = technique.ordinal
+        data[dataSize++] = value
+        data[dataSize++] = cellCount
+        data[dataSize++] = eliminationCount
+        System.arraycopy(cells, 0, data, dataSize, cellCount)
+        dataSize += cellCount
+        for (i in 0 until eliminationCount) {
+            val cell = eliminationCells[i]
+            data[dataSize++] = cell
+            data[dataSize++] = eliminationMasks[cell]
+        }
+    }
+
+    companion object {
+        private const val HEADER_SIZE = 4
+
+        private val TECHNIQUES = LogicalSolver.Technique.values()
+    }
+}
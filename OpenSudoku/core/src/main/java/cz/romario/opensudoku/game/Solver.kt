@@ -0,0 +1,79 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+
+
+package cz.romario.opensudoku.game
+
+/**
+ * Sudoku solving engine. Boards are given as values in row-major order, 0 meaning empty cell.
+ *
+ * Implementations keep work buffers between calls, so they are not thread safe; create one
+ * instance per thread.
+ */
+interface Solver {
+
+    /**
+     * Shape of boards this solver is set up for.
+     */
+    val geometry: BoardGeometry
+
+    /**
+     * Solves board given by its values.
+     *
+     * @return Values of all cells of solved board or null, if board cannot be solved.
+     * If board has more solutions, the first one found is returned.
+     */
+    fun solve(values: IntArray): IntArray?
+
+    /**
+     * Counts solutions of board given by its values, search stops once [limit] solutions
+     * are found. Limit of 2 tells whether the solution is unique.
+     *
+     * @return Number of solutions, at most [limit].
+     */
+    fun countSolutions(values: IntArray, limit: Int): Int
+
+    /**
+     * Solves board with current values of given cells.
+     *
+     * @return Values of all cells of solved board or null, if board cannot be solved.
+     */
+    fun solve(cells: CellCollection) = solve(getValues(cells))
+
+    fun solve(snapshot: BoardSnapshot) = solve(getValues(snapshot))
+
+    fun countSolutions(cells: CellCollection, limit: Int) = countSolutions(getValues(cells), limit)
+
+    fun countSolutions(snapshot: BoardSnapshot, limit: Int) = countSolutions(getValues(snapshot), limit)
+
+    private fun getValues(cells: CellCollection): IntArray {
+        if (cells.geometry != geometry) {
+            throw IllegalArgumentException("Solver is set up for " + geometry + " boards.")
+        }
+        return IntArray(geometry.cellCount) { cells.getValue(it) }
+    }
+
+    private fun getValues(snapshot: BoardSnapshot): IntArray {
+        if (snapshot.geometry != geometry) {
+            throw IllegalArgumentException("Solver is set up for " + geometry + " boards.")
+        }
+        return IntArray(geometry.cellCount) { snapshot.getValue(it) }
+    }
+}
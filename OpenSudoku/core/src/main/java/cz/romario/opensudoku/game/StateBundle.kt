@@ -0,0 +1,68 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+
+package cz.romario.opensudoku.game
+
+/**
+ * Key-value store to which game and its commands save their state, mirrors the parts of
+ * android.os.Bundle they need, so that the model does not depend on Android. Getters return
+ * 0, false or null for missing keys, like Bundle does.
+ *
+ * @see MapStateBundle
+ */
+interface StateBundle {
+
+    fun containsKey(key: String): Boolean
+
+    fun putBoolean(key: String, value: Boolean)
+
+    fun getBoolean(key: String): Boolean
+
+    fun putInt(key: String, value: Int)
+
+    fun getInt(key: String): Int
+
+    fun putLong(key: String, value: Long)
+
+    fun getLong(key: String): Long
+
+    fun putString(key: String, value: String?)
+
+    fun getString(key: String): String?
+
+    fun putIntArray(key: String, value: IntArray?)
+
+    fun getIntArray(key: String): IntArray?
+
+    fun putStringArray(key: String, value: Array<String>?)
+
+    fun getStringArray(key: String): Array<String>?
+
+    fun putByteArray(key: String, value: ByteArray?)
+
+    fun getByteArray(key: String): ByteArray?
+
+    /**
+     * Creates nested bundle stored under the key.
+     */
+    fun putBundle(key: String): StateBundle
+
+    fun getBundle(key: String): StateBundle?
+}
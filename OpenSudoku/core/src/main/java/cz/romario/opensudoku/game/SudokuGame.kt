@@ -20,8 +20,6 @@
 
 package cz.romario.opensudoku.game
 
-import android.os.Bundle
-import android.os.SystemClock
 import cz.romario.opensudoku.game.command.*
 
 class SudokuGame {
@@ -34,6 +32,18 @@ class SudokuGame {
     var note: String? = null
     private var mCells: CellCollection? = null
 
+    /**
+     * [CellCollection.zobristHash] of cells as they were last loaded from or written to
+     * the database, null if not known. Lets database skip re-serializing unchanged board.
+     */
+    var persistedCellsHash: Long? = null
+
+    /**
+     * Unique solution of the puzzle as stored in the database (see [PuzzleSolution]), null if
+     * it is not known or puzzle does not have unique solution. Used by [isWrong].
+     */
+    var solution: IntArray? = null
+
     private var mOnPuzzleSolvedListener: OnPuzzleSolvedListener? = null
     private var mCommandStack: CommandStack? = null
     // Time when current activity has become active.
@@ -51,7 +61,7 @@ class SudokuGame {
      */
     var time: Long
         get() = if (mActiveFromTime != -1L) {
-            mTime + SystemClock.uptimeMillis() - mActiveFromTime
+            mTime + uptimeMillis() - mActiveFromTime
         } else {
             mTime
         }
@@ -68,8 +78,7 @@ class SudokuGame {
         }
 
     /**
-     * Returns true, if puzzle is solved. In order to know the current state, you have to
-     * call validate first.
+     * Returns true, if puzzle is solved.
      *
      * @return
      */
@@ -84,26 +93,34 @@ class SudokuGame {
         state = GAME_STATE_NOT_STARTED
     }
 
-    fun saveState(outState: Bundle) {
+    fun saveState(outState: StateBundle) {
         outState.putLong("id", id)
         outState.putString("note", note)
         outState.putLong("created", created)
         outState.putInt("state", state)
         outState.putLong("time", mTime)
         outState.putLong("lastPlayed", lastPlayed)
-        outState.putString("cells", mCells!!.serialize())
+        outState.putByteArray("cells", mCells!!.serializeBinary())
+        if (persistedCellsHash != null) {
+            outState.putLong("persistedCellsHash", persistedCellsHash!!)
+        }
+        outState.putIntArray("solution", solution)
 
         mCommandStack!!.saveState(outState)
     }
 
-    fun restoreState(inState: Bundle) {
+    fun restoreState(inState: StateBundle) {
         id = inState.getLong("id")
         note = inState.getString("note")
         created = inState.getLong("created")
         state = inState.getInt("state")
         mTime = inState.getLong("time")
         lastPlayed = inState.getLong("lastPlayed")
-        mCells = CellCollection.deserialize(inState.getString("cells", ""))
+        // state saved by older versions has cells in text form
+        val cells = inState.getByteArray("cells")
+        mCells = if (cells != null) CellCollection.deserialize(cells) else CellCollection.deserialize(inState.getString("cells")!!)
+        persistedCellsHash = if (inState.containsKey("persistedCellsHash")) inState.getLong("persistedCellsHash") else null
+        solution = inState.getIntArray("solution")
 
         mCommandStack = CommandStack(mCells)
         mCommandStack!!.restoreState(inState)
@@ -126,14 +143,14 @@ class SudokuGame {
         if (cell == null) {
             throw IllegalArgumentException("Cell cannot be null.")
         }
-        if (value < 0 || value > 9) {
-            throw IllegalArgumentException("Value must be between 0-9.")
+        val size = mCells!!.size
+        if (value < 0 || value > size) {
+            throw IllegalArgumentException("Value must be between 0-" + size + ".")
         }
 
         if (cell.isEditable) {
             executeCommand(SetCellValueCommand(cell, value))
 
-            validate()
             if (isCompleted) {
                 finish()
                 if (mOnPuzzleSolvedListener != null) {
@@ -143,6 +160,20 @@ class SudokuGame {
         }
     }
 
+    /**
+     * Returns true if cell holds value which differs from the [solution]. Unlike
+     * [CellCollection.isValid] this catches also values which do not break rules (yet).
+     * Compares with the stored solution only, never runs a solver, so it is cheap enough
+     * to be called while drawing the board.
+     *
+     * @return False for empty cells and when solution is not known.
+     */
+    fun isWrong(index: Int): Boolean {
+        val value = mCells!!.getValue(index)
+        val solution = solution
+        return value != 0 && solution != null && solution[index] != value
+    }
+
     /**
      * Sets note attached to the given cell.
      *
@@ -201,7 +232,7 @@ class SudokuGame {
     fun resume() {
         // reset time we have spent playing so far, so time when activity was not active
         // will not be part of the game play time
-        mActiveFromTime = SystemClock.uptimeMillis()
+        mActiveFromTime = uptimeMillis()
     }
 
     /**
@@ -209,7 +240,7 @@ class SudokuGame {
      */
     fun pause() {
         // save time we have spent playing so far - it will be reseted after resuming
-        mTime += SystemClock.uptimeMillis() - mActiveFromTime
+        mTime += uptimeMillis() - mActiveFromTime
         mActiveFromTime = -1
 
         lastPlayed = System.currentTimeMillis()
@@ -227,16 +258,18 @@ class SudokuGame {
      * Resets game.
      */
     fun reset() {
-        for (r in 0..CellCollection.SUDOKU_SIZE - 1) {
-            for (c in 0..CellCollection.SUDOKU_SIZE - 1) {
-                val cell = mCells!!.getCell(r, c)
-                if (cell.isEditable) {
-                    cell.value = 0
-                    cell.note = CellNote()
+        mCells!!.batch {
+            for (r in 0..mCells!!.size - 1) {
+                for (c in 0..mCells!!.size - 1) {
+                    val cell = mCells!!.getCell(r, c)
+                    if (cell.isEditable) {
+                        cell.value = 0
+                        cell.note = CellNote.EMPTY
+                    }
                 }
             }
+            validate()
         }
-        validate()
         time = 0
         lastPlayed = 0
         state = GAME_STATE_NOT_STARTED
@@ -257,6 +290,9 @@ class SudokuGame {
         mCells!!.validate()
     }
 
+    // monotonic clock, play time is measured only while the game is active
+    private fun uptimeMillis() = System.nanoTime() / 1000000
+
     interface OnPuzzleSolvedListener {
         fun onPuzzleSolved()
     }
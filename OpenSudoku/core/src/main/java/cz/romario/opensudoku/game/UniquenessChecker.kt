@@ -0,0 +1,170 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+
+package cz.romario.opensudoku.game
+
+import java.util.*
+import java.util.concurrent.Executors
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.ScheduledFuture
+import java.util.concurrent.TimeUnit
+
+/**
+ * Tells whether the board being edited has no, one or more solutions. Call [update] after each
+ * edit; board is checked on a background thread once edits pause for a moment, running check
+ * of an older board is cancelled.
+ *
+ * Solutions found by the last check are kept. When they still fit the edited board, or when
+ * givens were only added to a board with no or unique solution, the answer is known without
+ * searching, so most edits are answered at once.
+ */
+class UniquenessChecker(val geometry: BoardGeometry, private val listener: Listener) {
+
+    interface Listener {
+        /**
+         * Called on the background thread when check of the last board has finished. Checker
+         * is locked meanwhile, so listener should only pass the result on to another thread.
+         *
+         * @param solutionCount 0, 1 or [PuzzleSolution.MULTIPLE] for more solutions.
+         */
+        fun onSolutionCountChecked(solutionCount: Int)
+    }
+
+    private val executor: ScheduledExecutorService = Executors.newSingleThreadScheduledExecutor { r ->
+        val thread = Thread(r, "UniquenessChecker")
+        thread.priority = Thread.MIN_PRIORITY
+        thread.isDaemon = true
+        thread
+    }
+    private val solver = CancellableSolver.create(geometry)
+
+    // guards request state below, results are published under it so that update which comes
+    // meanwhile either waits for the listener or makes the result stale
+    private val lock = Any()
+    // sequence number of the last board passed to update, results of older boards are dropped
+    private var sequence = 0
+    private var pending: ScheduledFuture<*>? = null
+    // cancels check of the last board passed to update
+    private var token = CancelToken()
+
+    // last checked board and what is known about it, accessed only by the background thread
+    private var checked: IntArray? = null
+    private var checkedCount = 0
+    private val knownSolutions = ArrayList<IntArray>()
+
+    /**
+     * Schedules check of the board.
+     */
+    fun update(snapshot: BoardSnapshot) {
+        if (snapshot.geometry != geometry) {
+            throw IllegalArgumentException("Checker is set up for " + geometry + " boards.")
+        }
+        val values = IntArray(geometry.cellCount) { snapshot.getValue(it) }
+        synchronized(lock) {
+            val request = ++sequence
+            pending?.cancel(false)
+            token.cancel()
+            val token = CancelToken()
+            this.token = token
+            pending = executor.schedule({ check(values, request, token) }, DEBOUNCE_DELAY, TimeUnit.MILLISECONDS)
+        }
+    }
+
+    /**
+     * Stops the background thread, checker cannot be updated afterwards.
+     */
+    fun shutdown() {
+        synchronized(lock) {
+            sequence++
+            token.cancel()
+        }
+        executor.shutdownNow()
+    }
+
+    private fun check(values: IntArray, request: Int, token: CancelToken) {
+        if (token.isCancelled) {
+            return
+        }
+        var count = getKnownCount(values)
+        if (count == -1) {
+            count = solver.countSolutions(values, PuzzleSolution.MULTIPLE, token)
+            if (token.isCancelled) {
+                return
+            }
+            knownSolutions.clear()
+            for (i in 0 until count) {
+                knownSolutions.add(solver.getSolution(i))
+            }
+        }
+        checked = values
+        checkedCount = count
+        synchronized(lock) {
+            if (request == sequence) {
+                listener.onSolutionCountChecked(count)
+            }
+        }
+    }
+
+    /**
+     * Returns solution count which follows from the last check, -1 if board has to be searched.
+     */
+    private fun getKnownCount(values: IntArray): Int {
+        val last = checked ?: return -1
+        var fitting = 0
+        for (solution in knownSolutions) {
+            if (fits(solution, values)) {
+                fitting++
+            }
+        }
+        if (fitting >= PuzzleSolution.MULTIPLE) {
+            return PuzzleSolution.MULTIPLE
+        }
+        // adding givens never adds solutions
+        if (hasAllGivens(values, last)) {
+            if (checkedCount == 0 || (checkedCount == 1 && fitting == 1)) {
+                return checkedCount
+            }
+        }
+        return -1
+    }
+
+    private fun fits(solution: IntArray, values: IntArray): Boolean {
+        for (i in values.indices) {
+            if (values[i] != 0 && values[i] != solution[i]) {
+                return false
+            }
+        }
+        return true
+    }
+
+    private fun hasAllGivens(values: IntArray, givens: IntArray): Boolean {
+        for (i in givens.indices) {
+            if (givens[i] != 0 && values[i] != givens[i]) {
+                return false
+            }
+        }
+        return true
+    }
+
+    companion object {
+        // edits made in quick succession are checked once
+        private const val DEBOUNCE_DELAY = 150L
+    }
+}
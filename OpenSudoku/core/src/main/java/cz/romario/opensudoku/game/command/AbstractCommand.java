@@ -20,7 +20,7 @@
 
 package cz.romario.opensudoku.game.command;
 
-import android.os.Bundle;
+import cz.romario.opensudoku.game.StateBundle;
 
 /**
  * Generic interface for command in application.
@@ -45,11 +45,11 @@ public abstract class AbstractCommand {
 
 	private boolean mIsCheckpoint;
 
-	void saveState(Bundle outState) {
+	void saveState(StateBundle outState) {
 		outState.putBoolean("isCheckpoint", mIsCheckpoint);
 	}
 
-	void restoreState(Bundle inState) {
+	void restoreState(StateBundle inState) {
 		mIsCheckpoint = inState.getBoolean("isCheckpoint");
 	}
 
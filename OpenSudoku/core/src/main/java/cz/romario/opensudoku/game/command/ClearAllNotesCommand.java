@@ -20,14 +20,13 @@
 
 package cz.romario.opensudoku.game.command;
 
-import android.os.Bundle;
-
 import java.util.ArrayList;
 import java.util.List;
 
 import cz.romario.opensudoku.game.Cell;
 import cz.romario.opensudoku.game.CellCollection;
 import cz.romario.opensudoku.game.CellNote;
+import cz.romario.opensudoku.game.StateBundle;
 
 public class ClearAllNotesCommand extends AbstractCellCommand {
 
@@ -51,7 +50,7 @@ public class ClearAllNotesCommand extends AbstractCellCommand {
 	}
 
 	@Override
-	void saveState(Bundle outState) {
+	void saveState(StateBundle outState) {
 		super.saveState(outState);
 
 		int[] rows = new int[mOldNotes.size()];
@@ -72,7 +71,7 @@ public class ClearAllNotesCommand extends AbstractCellCommand {
 	}
 
 	@Override
-	void restoreState(Bundle inState) {
+	void restoreState(StateBundle inState) {
 		super.restoreState(inState);
 
 		int[] rows = inState.getIntArray("rows");
@@ -90,15 +89,20 @@ public class ClearAllNotesCommand extends AbstractCellCommand {
 		CellCollection cells = getCells();
 
 		mOldNotes.clear();
-		for (int r = 0; r < CellCollection.Companion.getSUDOKU_SIZE(); r++) {
-			for (int c = 0; c < CellCollection.Companion.getSUDOKU_SIZE(); c++) {
-				Cell cell = cells.getCell(r, c);
-				CellNote note = cell.getNote();
-				if (!note.isEmpty()) {
-					mOldNotes.add(new NoteEntry(r, c, note));
-					cell.setNote(new CellNote());
+		cells.beginChange();
+		try {
+			for (int r = 0; r < cells.getSize(); r++) {
+				for (int c = 0; c < cells.getSize(); c++) {
+					Cell cell = cells.getCell(r, c);
+					CellNote note = cell.getNote();
+					if (!note.isEmpty()) {
+						mOldNotes.add(new NoteEntry(r, c, note));
+						cell.setNote(CellNote.Companion.getEMPTY());
+					}
 				}
 			}
+		} finally {
+			cells.endChange();
 		}
 	}
 
@@ -106,10 +110,14 @@ public class ClearAllNotesCommand extends AbstractCellCommand {
 	void undo() {
 		CellCollection cells = getCells();
 
-		for (NoteEntry ne : mOldNotes) {
-			cells.getCell(ne.rowIndex, ne.colIndex).setNote(ne.note);
+		cells.beginChange();
+		try {
+			for (NoteEntry ne : mOldNotes) {
+				cells.getCell(ne.rowIndex, ne.colIndex).setNote(ne.note);
+			}
+		} finally {
+			cells.endChange();
 		}
-
 	}
 
 
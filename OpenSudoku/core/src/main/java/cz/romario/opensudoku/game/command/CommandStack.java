@@ -3,35 +3,31 @@ package cz.romario.opensudoku.game.command;
 import java.util.Stack;
 
 import cz.romario.opensudoku.game.CellCollection;
-
-import android.os.Bundle;
+import cz.romario.opensudoku.game.StateBundle;
 
 public class CommandStack {
 	private Stack<AbstractCommand> mCommandStack = new Stack<AbstractCommand>();
 
-	// TODO: I need cells collection, because I have to call validate on it after some
-	//	commands. CellCollection should be able to validate itself on change.
 	private CellCollection mCells;
 
 	public CommandStack(CellCollection cells) {
 		mCells = cells;
 	}
 
-	public void saveState(Bundle outState) {
+	public void saveState(StateBundle outState) {
 		outState.putInt("cmdStack.size", mCommandStack.size());
 		for (int i = 0; i < mCommandStack.size(); i++) {
 			AbstractCommand command = mCommandStack.get(i);
-			Bundle commandState = new Bundle();
+			StateBundle commandState = outState.putBundle("cmdStack." + i);
 			commandState.putString("commandClass", command.getCommandClass());
 			command.saveState(commandState);
-			outState.putBundle("cmdStack." + i, commandState);
 		}
 	}
 
-	public void restoreState(Bundle inState) {
+	public void restoreState(StateBundle inState) {
 		int stackSize = inState.getInt("cmdStack.size");
 		for (int i = 0; i < stackSize; i++) {
-			Bundle commandState = inState.getBundle("cmdStack." + i);
+			StateBundle commandState = inState.getBundle("cmdStack." + i);
 			AbstractCommand command = AbstractCommand.newInstance(commandState.getString("commandClass"));
 			command.restoreState(commandState);
 			push(command);
@@ -51,7 +47,6 @@ public class CommandStack {
 		if (!mCommandStack.empty()) {
 			AbstractCommand c = pop();
 			c.undo();
-			validateCells();
 		}
 	}
 
@@ -71,20 +66,20 @@ public class CommandStack {
 	}
 
 	public void undoToCheckpoint() {
-		/*
-		 * I originally planned to just call undo but this way it doesn't need to 
-		 * validateCells() until the run is complete
-		 */
 		AbstractCommand c;
-		while (!mCommandStack.empty()) {
-			c = mCommandStack.pop();
-			c.undo();
-
-			if (mCommandStack.empty() || mCommandStack.peek().isCheckpoint()) {
-				break;
+		mCells.beginChange();
+		try {
+			while (!mCommandStack.empty()) {
+				c = mCommandStack.pop();
+				c.undo();
+
+				if (mCommandStack.empty() || mCommandStack.peek().isCheckpoint()) {
+					break;
+				}
 			}
+		} finally {
+			mCells.endChange();
 		}
-		validateCells();
 	}
 
 
@@ -103,9 +98,4 @@ public class CommandStack {
 		return mCommandStack.pop();
 	}
 
-	private void validateCells() {
-		mCells.validate();
-	}
-
-
 }
@@ -20,10 +20,9 @@
 
 package cz.romario.opensudoku.game.command;
 
-import android.os.Bundle;
-
 import cz.romario.opensudoku.game.Cell;
 import cz.romario.opensudoku.game.CellNote;
+import cz.romario.opensudoku.game.StateBundle;
 
 public class EditCellNoteCommand extends AbstractCellCommand {
 
@@ -43,7 +42,7 @@ public class EditCellNoteCommand extends AbstractCellCommand {
 	}
 
 	@Override
-	void saveState(Bundle outState) {
+	void saveState(StateBundle outState) {
 		super.saveState(outState);
 
 		outState.putInt("cellRow", mCellRow);
@@ -53,7 +52,7 @@ public class EditCellNoteCommand extends AbstractCellCommand {
 	}
 
 	@Override
-	void restoreState(Bundle inState) {
+	void restoreState(StateBundle inState) {
 		super.restoreState(inState);
 
 		mCellRow = inState.getInt("cellRow");
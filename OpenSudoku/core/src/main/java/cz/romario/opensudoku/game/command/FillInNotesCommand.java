@@ -1,14 +1,12 @@
 package cz.romario.opensudoku.game.command;
 
-import android.os.Bundle;
-
 import java.util.ArrayList;
 import java.util.List;
 
 import cz.romario.opensudoku.game.Cell;
 import cz.romario.opensudoku.game.CellCollection;
-import cz.romario.opensudoku.game.CellGroup;
 import cz.romario.opensudoku.game.CellNote;
+import cz.romario.opensudoku.game.StateBundle;
 
 public class FillInNotesCommand extends AbstractCellCommand {
 
@@ -30,7 +28,7 @@ public class FillInNotesCommand extends AbstractCellCommand {
 	}
 
 	@Override
-	void saveState(Bundle outState) {
+	void saveState(StateBundle outState) {
 		super.saveState(outState);
 
 		int[] rows = new int[mOldNotes.size()];
@@ -51,7 +49,7 @@ public class FillInNotesCommand extends AbstractCellCommand {
 	}
 
 	@Override
-	void restoreState(Bundle inState) {
+	void restoreState(StateBundle inState) {
 		super.restoreState(inState);
 
 		int[] rows = inState.getIntArray("rows");
@@ -69,21 +67,17 @@ public class FillInNotesCommand extends AbstractCellCommand {
 		CellCollection cells = getCells();
 
 		mOldNotes.clear();
-		for (int r = 0; r < CellCollection.Companion.getSUDOKU_SIZE(); r++) {
-			for (int c = 0; c < CellCollection.Companion.getSUDOKU_SIZE(); c++) {
-				Cell cell = cells.getCell(r, c);
-				mOldNotes.add(new NoteEntry(r, c, cell.getNote()));
-				cell.setNote(new CellNote());
-
-				CellGroup row = cell.getRow();
-				CellGroup column = cell.getColumn();
-				CellGroup sector = cell.getSector();
-				for (int i = 1; i <= CellCollection.Companion.getSUDOKU_SIZE(); i++) {
-					if (!row.contains(i) && !column.contains(i) && !sector.contains(i)) {
-						cell.setNote(cell.getNote().addNumber(i));
-					}
+		cells.beginChange();
+		try {
+			for (int r = 0; r < cells.getSize(); r++) {
+				for (int c = 0; c < cells.getSize(); c++) {
+					Cell cell = cells.getCell(r, c);
+					mOldNotes.add(new NoteEntry(r, c, cell.getNote()));
+					cell.setNote(CellNote.Companion.valueOf(cells.getCandidates(cell.getIndex())));
 				}
 			}
+		} finally {
+			cells.endChange();
 		}
 	}
 
@@ -91,8 +85,13 @@ public class FillInNotesCommand extends AbstractCellCommand {
 	void undo() {
 		CellCollection cells = getCells();
 
-		for (NoteEntry ne : mOldNotes) {
-			cells.getCell(ne.rowIndex, ne.colIndex).setNote(ne.note);
+		cells.beginChange();
+		try {
+			for (NoteEntry ne : mOldNotes) {
+				cells.getCell(ne.rowIndex, ne.colIndex).setNote(ne.note);
+			}
+		} finally {
+			cells.endChange();
 		}
 	}
 }
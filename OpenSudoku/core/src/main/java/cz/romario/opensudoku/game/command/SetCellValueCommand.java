@@ -20,8 +20,8 @@
 
 package cz.romario.opensudoku.game.command;
 
-import android.os.Bundle;
 import cz.romario.opensudoku.game.Cell;
+import cz.romario.opensudoku.game.StateBundle;
 
 public class SetCellValueCommand extends AbstractCellCommand {
 
@@ -41,7 +41,7 @@ public class SetCellValueCommand extends AbstractCellCommand {
 	}
 
 	@Override
-	void saveState(Bundle outState) {
+	void saveState(StateBundle outState) {
 		super.saveState(outState);
 
 		outState.putInt("cellRow", mCellRow);
@@ -51,7 +51,7 @@ public class SetCellValueCommand extends AbstractCellCommand {
 	}
 
 	@Override
-	void restoreState(Bundle inState) {
+	void restoreState(StateBundle inState) {
 		super.restoreState(inState);
 
 		mCellRow = inState.getInt("cellRow");
@@ -0,0 +1,79 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+package cz.romario.opensudoku.game
+
+import org.junit.Assert.*
+import org.junit.Test
+
+class BitboardSolverTest : SolverTest() {
+
+    override fun createSolver(geometry: BoardGeometry): Solver = BitboardSolver(geometry)
+
+    @Test
+    fun keepsFirstSolutions() {
+        val solver = BitboardSolver()
+        val values = parse(TWO_SOLUTIONS)
+
+        assertEquals(2, solver.countSolutions(values, 2))
+        val first = solver.getSolution(0)
+        val second = solver.getSolution(1)
+        assertSolved(solver.geometry, values, first)
+        assertSolved(solver.geometry, values, second)
+        assertFalse(first.contentEquals(second))
+        assertTrue(first.contentEquals(parse(SOLUTION)) || second.contentEquals(parse(SOLUTION)))
+    }
+
+    @Test
+    fun stopsSearchWhenTokenIsCancelledBeforeStart() {
+        val solver = BitboardSolver()
+        val token = CancelToken()
+        token.cancel()
+
+        assertEquals(0, solver.countSolutions(IntArray(81), 1000, token))
+        // token belongs to the cancelled search only
+        assertEquals(1000, solver.countSolutions(IntArray(81), 1000, CancelToken()))
+    }
+
+    @Test(timeout = 10000)
+    fun stopsSearchWhenTokenIsCancelledFromAnotherThread() {
+        val solver = BitboardSolver(BoardGeometry.forSize(25))
+        val token = CancelToken()
+        val canceller = Thread {
+            Thread.sleep(50)
+            token.cancel()
+        }
+        canceller.start()
+
+        val count = solver.countSolutions(IntArray(25 * 25), Int.MAX_VALUE, token)
+        canceller.join()
+        assertTrue(token.isCancelled)
+        assertTrue(count < Int.MAX_VALUE)
+    }
+
+    @Test
+    fun stopsSearchWhenParentTokenIsCancelled() {
+        val parent = CancelToken()
+        val token = CancelToken(parent)
+        parent.cancel()
+
+        assertTrue(token.isCancelled)
+        assertEquals(0, BitboardSolver().countSolutions(IntArray(81), 10, token))
+    }
+}
@@ -0,0 +1,353 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+package cz.romario.opensudoku.game
+
+import org.junit.Assert.*
+import org.junit.Test
+import java.util.*
+
+class CellCollectionTest {
+
+    private val sizes = intArrayOf(4, 6, 9, 12, 16, 25)
+
+    @Test
+    fun binaryDataRoundTrip() {
+        for (size in sizes) {
+            val cells = createBoard(BoardGeometry.forSize(size), Random(size.toLong()))
+            val data = cells.serializeBinary()
+
+            assertEquals(CellCollection.DATA_VERSION_2, data[0].toInt())
+            assertEquals(cells.binarySize, data.size)
+            assertTrue(CellCollection.isValid(data))
+            assertSameCells(cells, CellCollection.deserialize(data))
+        }
+    }
+
+    @Test
+    fun binaryDataWrittenAtOffset() {
+        val cells = createBoard(BoardGeometry.STANDARD, Random(1))
+        val buffer = ByteArray(cells.binarySize + 10)
+        Arrays.fill(buffer, 0x55.toByte())
+
+        assertEquals(cells.binarySize, cells.serializeBinary(buffer, 5))
+        assertArrayEquals(cells.serializeBinary(), Arrays.copyOfRange(buffer, 5, 5 + cells.binarySize))
+    }
+
+    @Test
+    fun invalidBinaryDataAreRejected() {
+        val data = createBoard(BoardGeometry.STANDARD, Random(2)).serializeBinary()
+
+        assertFalse(CellCollection.isValid(Arrays.copyOf(data, data.size - 1)))
+        assertFalse(CellCollection.isValid(ByteArray(0)))
+        val wrongVersion = data.copyOf()
+        wrongVersion[0] = 1
+        assertFalse(CellCollection.isValid(wrongVersion))
+        val wrongSize = data.copyOf()
+        wrongSize[1] = 10
+        assertFalse(CellCollection.isValid(wrongSize))
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun deserializingInvalidBinaryDataFails() {
+        val data = createBoard(BoardGeometry.STANDARD, Random(3)).serializeBinary()
+        CellCollection.deserialize(Arrays.copyOf(data, data.size - 1))
+    }
+
+    @Test
+    fun textDataRoundTrip() {
+        for (size in sizes) {
+            val cells = createBoard(BoardGeometry.forSize(size), Random(size.toLong()))
+            val data = cells.serialize()
+
+            assertTrue(data.startsWith("version: 1\n"))
+            assertTrue(CellCollection.isValid(data, CellCollection.DATA_VERSION_1))
+            assertSameCells(cells, CellCollection.deserialize(data))
+        }
+    }
+
+    @Test
+    fun textDataMatchBinaryData() {
+        val cells = createBoard(BoardGeometry.forSize(16), Random(4))
+
+        assertArrayEquals(cells.serializeBinary(), CellCollection.deserialize(cells.serialize()).serializeBinary())
+    }
+
+    @Test
+    fun plainDataAreParsed() {
+        val cells = CellCollection.deserialize(PUZZLE)
+
+        assertEquals(BoardGeometry.STANDARD, cells.geometry)
+        for (i in 0 until cells.cellCount) {
+            val value = PUZZLE[i] - '0'
+            assertEquals(value, cells.getValue(i))
+            assertEquals(value == 0, cells.isEditable(i))
+        }
+    }
+
+    @Test
+    fun whitespaceInPlainDataIsSkipped() {
+        val rows = StringBuilder()
+        for (r in 0 until 9) {
+            rows.append(PUZZLE, r * 9, r * 9 + 9).append("\r\n")
+        }
+        val spaced = PUZZLE.toCharArray().joinToString(" ") + " \n\n"
+        val expected = CellCollection.deserialize(PUZZLE)
+
+        assertSameCells(expected, CellCollection.deserialize(PUZZLE + "\n"))
+        assertSameCells(expected, CellCollection.deserialize(rows.toString()))
+        assertSameCells(expected, CellCollection.deserialize(spaced))
+        assertTrue(CellCollection.isValid(rows.toString(), CellCollection.DATA_VERSION_PLAIN))
+    }
+
+    @Test
+    fun invalidTextDataAreRejected() {
+        val puzzle = PUZZLE
+
+        assertFalse(CellCollection.isValid(puzzle.substring(1), CellCollection.DATA_VERSION_PLAIN))
+        assertFalse(CellCollection.isValid(puzzle + "1", CellCollection.DATA_VERSION_PLAIN))
+        assertFalse(CellCollection.isValid(puzzle.replace('5', '.'), CellCollection.DATA_VERSION_PLAIN))
+        assertFalse(CellCollection.isValid("version: 1\n0|-|2|", CellCollection.DATA_VERSION_1))
+        assertFalse(CellCollection.isValid("version: 1\nsize: 10\n", CellCollection.DATA_VERSION_1))
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun deserializingInvalidTextDataFails() {
+        CellCollection.deserialize("version: 1\n10|-|1|")
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun settingNoteAboveBoardSizeFails() {
+        val cells = CellCollection.createEmpty(BoardGeometry.forSize(6))
+        cells.getCell(0).note = CellNote.EMPTY.addNumber(7)
+    }
+
+    @Test
+    fun noteOfLargeBoardIsSet() {
+        val cells = CellCollection.createEmpty(BoardGeometry.forSize(25))
+        cells.getCell(0).note = CellNote.EMPTY.addNumber(25)
+
+        assertTrue(cells.getCell(0).note.hasNumber(25))
+    }
+
+    @Test
+    fun changesRoundTrip() {
+        for (size in sizes) {
+            val random = Random(size.toLong())
+            val cells = createBoard(BoardGeometry.forSize(size), random)
+            val persisted = CellCollection.deserialize(cells.serializeBinary())
+            cells.clearDirtyCells()
+
+            for (n in 0 until 5) {
+                val index = random.nextInt(cells.cellCount)
+                if (cells.isEditable(index)) {
+                    cells.getCell(index).value = random.nextInt(size + 1)
+                    cells.getCell(index).note = CellNote.valueOf(random.nextInt(1 shl size))
+                }
+            }
+            val changes = cells.serializeChanges()
+
+            assertEquals(cells.changesSize, changes.size)
+            persisted.applyChanges(changes)
+            assertSameCells(cells, persisted)
+        }
+    }
+
+    @Test
+    fun changesAreTrackedSinceLastClear() {
+        val cells = CellCollection.deserialize(PUZZLE)
+        cells.clearDirtyCells()
+
+        assertEquals(0, cells.dirtyCellCount)
+        cells.getCell(0).value = 3
+        cells.getCell(0).value = 0
+        cells.getCell(3).note = CellNote.valueOf(0b101)
+        assertEquals(2, cells.dirtyCellCount)
+        cells.clearDirtyCells()
+        assertEquals(0, cells.dirtyCellCount)
+    }
+
+    @Test
+    fun editableChangesAreTracked() {
+        val cells = CellCollection.deserialize(PUZZLE)
+        assertTrue(cells.hasEditableChanges)
+        cells.clearDirtyCells()
+
+        cells.getCell(0).value = 3
+        cells.getCell(0).note = CellNote.valueOf(0b11)
+        assertFalse(cells.hasEditableChanges)
+        cells.getCell(0).isEditable = true
+        assertFalse(cells.hasEditableChanges)
+        cells.markFilledCellsAsNotEditable()
+        assertTrue(cells.hasEditableChanges)
+        cells.clearDirtyCells()
+        assertFalse(cells.hasEditableChanges)
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun applyingChangesOfOtherSizeFails() {
+        val changes = createBoard(BoardGeometry.forSize(4), Random(5)).serializeChanges()
+        CellCollection.deserialize(PUZZLE).applyChanges(changes)
+    }
+
+    @Test
+    fun validationIsKeptUpToDate() {
+        for (size in intArrayOf(4, 9, 16)) {
+            val geometry = BoardGeometry.forSize(size)
+            val random = Random(size.toLong())
+            val cells = createBoard(geometry, random)
+            for (n in 0 until 200) {
+                cells.setValue(random.nextInt(cells.cellCount), random.nextInt(size + 1))
+                assertValidation(cells)
+            }
+        }
+    }
+
+    @Test
+    fun solvedBoardIsCompleted() {
+        val cells = CellCollection.deserialize(PUZZLE)
+        val solution = BitboardSolver(BoardGeometry.STANDARD).solve(IntArray(81) { PUZZLE[it] - '0' })!!
+        for (i in 0 until 80) {
+            cells.setValue(i, solution[i])
+        }
+
+        assertFalse(cells.isCompleted)
+        cells.setValue(80, solution[80] % 9 + 1)
+        assertFalse(cells.isCompleted)
+        assertFalse(cells.isValid(80))
+        cells.setValue(80, solution[80])
+        assertTrue(cells.isCompleted)
+        assertEquals(9, cells.getValueCount(solution[80]))
+    }
+
+    @Test
+    fun zobristHashIsKeptUpToDate() {
+        for (size in intArrayOf(4, 9, 16)) {
+            val geometry = BoardGeometry.forSize(size)
+            val random = Random(size.toLong())
+            val cells = createBoard(geometry, random)
+            for (n in 0 until 300) {
+                val index = random.nextInt(cells.cellCount)
+                when (random.nextInt(3)) {
+                    0 -> cells.setValue(index, random.nextInt(size + 1))
+                    1 -> cells.setNote(index, CellNote.valueOf(random.nextInt(geometry.allValuesMask + 1)))
+                    else -> cells.setEditable(index, random.nextBoolean())
+                }
+                assertEquals(CellCollection.deserialize(cells.serializeBinary()).zobristHash, cells.zobristHash)
+            }
+        }
+    }
+
+    @Test
+    fun zobristHashDependsOnlyOnCurrentState() {
+        val cells = CellCollection.deserialize(PUZZLE)
+        val original = cells.zobristHash
+        val index = PUZZLE.indexOf('0')
+
+        cells.setValue(index, 1)
+        cells.setNote(index, CellNote.valueOf(0b101))
+        cells.setEditable(index, false)
+        assertNotEquals(original, cells.zobristHash)
+
+        cells.setEditable(index, true)
+        cells.setNote(index, CellNote.EMPTY)
+        cells.setValue(index, 0)
+        assertEquals(original, cells.zobristHash)
+    }
+
+    /**
+     * Creates board from random solution, with some cells cleared and noted instead and some
+     * cells read-only.
+     */
+    private fun createBoard(geometry: BoardGeometry, random: Random): CellCollection {
+        val givens = IntArray(geometry.cellCount)
+        givens[random.nextInt(givens.size)] = random.nextInt(geometry.size) + 1
+        val solution = BitboardSolver(geometry).solve(givens)!!
+        val cells = CellCollection.createEmpty(geometry)
+        for (i in 0 until geometry.cellCount) {
+            val cell = cells.getCell(i)
+            when (random.nextInt(3)) {
+                0 -> {
+                    cell.value = solution[i]
+                    cell.isEditable = false
+                }
+                1 -> cell.value = solution[i]
+                else -> cell.note = CellNote.valueOf(random.nextInt(1 shl geometry.size))
+            }
+        }
+        return cells
+    }
+
+    /**
+     * Compares incrementally maintained validation state with state computed from scratch.
+     */
+    private fun assertValidation(cells: CellCollection) {
+        val geometry = cells.geometry
+        val size = geometry.size
+        var filled = 0
+        for (i in 0 until cells.cellCount) {
+            val r = i / size
+            val c = i % size
+            val value = cells.getValue(i)
+            var used = 0
+            var valid = true
+            for (j in 0 until cells.cellCount) {
+                val peer = j / size == r || j % size == c ||
+                        geometry.getSectorIndex(j / size, j % size) == geometry.getSectorIndex(r, c)
+                if (j != i && peer && cells.getValue(j) != 0) {
+                    used = used or (1 shl (cells.getValue(j) - 1))
+                    if (cells.getValue(j) == value) {
+                        valid = false
+                    }
+                }
+            }
+            if (value != 0) {
+                filled++
+            }
+            assertEquals(valid || value == 0, cells.isValid(i))
+            // own value counts as used too
+            val ownMask = if (value == 0) 0 else 1 shl (value - 1)
+            assertEquals(geometry.allValuesMask and (used or ownMask).inv(), cells.getCandidates(i))
+        }
+        for (value in 1..size) {
+            var count = 0
+            for (i in 0 until cells.cellCount) {
+                if (cells.getValue(i) == value) {
+                    count++
+                }
+            }
+            assertEquals(count, cells.getValueCount(value))
+        }
+        assertEquals(filled == 0, cells.isEmpty)
+    }
+
+    private fun assertSameCells(expected: CellCollection, actual: CellCollection) {
+        assertEquals(expected.geometry, actual.geometry)
+        for (i in 0 until expected.cellCount) {
+            assertEquals(expected.getValue(i), actual.getValue(i))
+            assertEquals(expected.getCell(i).note, actual.getCell(i).note)
+            assertEquals(expected.isEditable(i), actual.isEditable(i))
+        }
+        assertEquals(expected.zobristHash, actual.zobristHash)
+    }
+
+    companion object {
+        const val PUZZLE = "052006000160900004049803620400000800083201590001000002097305240200009056000100970"
+    }
+}
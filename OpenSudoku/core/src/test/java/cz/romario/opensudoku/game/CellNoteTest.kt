@@ -0,0 +1,79 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+package cz.romario.opensudoku.game
+
+import org.junit.Assert.*
+import org.junit.Test
+
+class CellNoteTest {
+
+    @Test
+    fun textRoundTripOfAllStandardNotes() {
+        for (mask in 0 until (1 shl 9)) {
+            val note = CellNote.valueOf(mask)
+
+            assertEquals(note, CellNote.deserialize(note.serialize()))
+        }
+    }
+
+    @Test
+    fun textRoundTripOfLargeBoardNotes() {
+        val note = CellNote.EMPTY.addNumber(1).addNumber(10).addNumber(16).addNumber(25)
+
+        assertEquals("1,10,16,25", note.serialize())
+        assertEquals(note, CellNote.deserialize(note.serialize()))
+    }
+
+    @Test
+    fun emptyNoteIsSerializedAsHyphen() {
+        assertEquals("-", CellNote.EMPTY.serialize())
+        assertSame(CellNote.EMPTY, CellNote.deserialize("-"))
+        assertSame(CellNote.EMPTY, CellNote.deserialize(null))
+    }
+
+    @Test
+    fun trailingCommaIsAccepted() {
+        assertEquals(CellNote.fromIntArray(arrayOf(1, 2)), CellNote.deserialize("1,2,"))
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun invalidTextIsRejected() {
+        CellNote.deserialize("1;2")
+    }
+
+    @Test
+    fun standardNotesAreInterned() {
+        for (mask in 0 until (1 shl 9)) {
+            assertSame(CellNote.valueOf(mask), CellNote.valueOf(mask))
+        }
+        assertSame(CellNote.valueOf(3), CellNote.EMPTY.toggleNumber(1).toggleNumber(2))
+    }
+
+    @Test
+    fun numbersAreAddedAndRemoved() {
+        val note = CellNote.EMPTY.addNumber(3).addNumber(7)
+
+        assertTrue(note.hasNumber(3))
+        assertFalse(note.hasNumber(4))
+        assertEquals(setOf(3, 7), note.notedNumbers)
+        assertEquals(CellNote.valueOf(1 shl 6), note.removeNumber(3))
+        assertTrue(note.clear().isEmpty)
+    }
+}
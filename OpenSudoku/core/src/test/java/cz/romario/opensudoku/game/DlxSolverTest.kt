@@ -0,0 +1,58 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+package cz.romario.opensudoku.game
+
+import org.junit.Assert.*
+import org.junit.Test
+import java.util.*
+
+class DlxSolverTest : SolverTest() {
+
+    override fun createSolver(geometry: BoardGeometry): Solver = DlxSolver(geometry)
+
+    @Test
+    fun countsSameSolutionsAsBitboardSolver() {
+        val random = Random(1)
+        val solution = parse(SOLUTION)
+        val dlx = DlxSolver()
+        val bitboard = BitboardSolver()
+        for (t in 0 until 200) {
+            // boards between almost full and almost empty, some of them broken by a wrong value
+            val values = solution.copyOf()
+            val keep = random.nextDouble()
+            for (i in values.indices) {
+                if (random.nextDouble() > keep) {
+                    values[i] = 0
+                }
+            }
+            if (t % 4 == 0) {
+                values[random.nextInt(values.size)] = random.nextInt(9) + 1
+            }
+
+            val count = bitboard.countSolutions(values, 3)
+            assertEquals(count, dlx.countSolutions(values, 3))
+            if (count > 0) {
+                assertSolved(dlx.geometry, values, dlx.solve(values))
+            } else {
+                assertNull(dlx.solve(values))
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+package cz.romario.opensudoku.game
+
+import org.junit.Assert.*
+import org.junit.Test
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class HintFinderTest {
+
+    @Test(timeout = 10000)
+    fun hintIsFoundInBackground() {
+        val finder = HintFinder(BoardGeometry.STANDARD)
+        try {
+            val snapshot = CellCollection.deserialize(SolverTest.PUZZLE).snapshot()
+            val hint = requestHint(finder, snapshot)
+
+            assertNotNull(hint)
+            assertTrue(hint!!.isPlacement)
+            val cell = hint.cells[0]
+            assertEquals(0, snapshot.getValue(cell))
+            assertEquals(SolverTest.SOLUTION[cell] - '0', hint.value)
+        } finally {
+            finder.shutdown()
+        }
+    }
+
+    @Test(timeout = 10000)
+    fun readyHintIsReturnedOnCallingThread() {
+        val finder = HintFinder(BoardGeometry.STANDARD)
+        try {
+            val snapshot = CellCollection.deserialize(SolverTest.PUZZLE).snapshot()
+            val hint = requestHint(finder, snapshot)
+
+            var thread: Thread? = null
+            var again: Hint? = null
+            finder.requestHint(snapshot, object : HintFinder.OnHintListener {
+                override fun onHint(hint: Hint?) {
+                    thread = Thread.currentThread()
+                    again = hint
+                }
+            })
+            assertSame(Thread.currentThread(), thread)
+            assertSame(hint, again)
+        } finally {
+            finder.shutdown()
+        }
+    }
+
+    private fun requestHint(finder: HintFinder, snapshot: BoardSnapshot): Hint? {
+        val latch = CountDownLatch(1)
+        var result: Hint? = null
+        finder.requestHint(snapshot, object : HintFinder.OnHintListener {
+            override fun onHint(hint: Hint?) {
+                result = hint
+                latch.countDown()
+            }
+        })
+        assertTrue(latch.await(5, TimeUnit.SECONDS))
+        return result
+    }
+}
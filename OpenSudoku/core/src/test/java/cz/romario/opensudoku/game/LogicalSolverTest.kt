@@ -0,0 +1,123 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+package cz.romario.opensudoku.game
+
+import org.junit.Assert.*
+import org.junit.Test
+
+class LogicalSolverTest {
+
+    private val solver = LogicalSolver()
+    private val trace = SolveTrace()
+
+    @Test
+    fun easyPuzzleIsSolvedBySingles() {
+        val values = SolverTest.parse(SolverTest.PUZZLE)
+
+        assertTrue(solver.solve(values, trace))
+        for (i in 0 until 81) {
+            assertEquals(SolverTest.SOLUTION[i] - '0', solver.getValue(i))
+        }
+        for (step in 0 until trace.stepCount) {
+            assertEquals(Difficulty.EASY, trace.getTechnique(step).difficulty)
+        }
+        assertEquals(Difficulty.EASY, solver.rate(values))
+    }
+
+    @Test
+    fun puzzlesAreRatedByHardestTechnique() {
+        assertRating(Difficulty.MEDIUM, MEDIUM)
+        assertRating(Difficulty.HARD, HARD)
+        assertRating(Difficulty.EXPERT, EXPERT)
+    }
+
+    @Test
+    fun stepsAgreeWithSolution() {
+        for (puzzle in arrayOf(SolverTest.PUZZLE, MEDIUM, HARD, EXPERT)) {
+            val values = SolverTest.parse(puzzle)
+            val solution = BitboardSolver(BoardGeometry.STANDARD).solve(values)!!
+
+            assertTrue(solver.solve(values, trace))
+            for (step in 0 until trace.stepCount) {
+                val technique = trace.getTechnique(step)
+                if (technique == LogicalSolver.Technique.NAKED_SINGLE || technique == LogicalSolver.Technique.HIDDEN_SINGLE) {
+                    assertEquals(solution[trace.getCell(step, 0)], trace.getValue(step))
+                }
+                // no step may eliminate the value of the solution
+                for (e in 0 until trace.getEliminationCount(step)) {
+                    val cell = trace.getEliminationCell(step, e)
+                    assertEquals(0, trace.getEliminationMask(step, e) and (1 shl (solution[cell] - 1)))
+                }
+            }
+        }
+    }
+
+    @Test
+    fun puzzleBeyondTechniquesIsNotRated() {
+        val values = SolverTest.parse(BEYOND_TECHNIQUES)
+
+        assertFalse(solver.solve(values, null))
+        assertNull(solver.rate(values))
+    }
+
+    @Test
+    fun brokenBoardIsNotSolved() {
+        val values = SolverTest.parse(SolverTest.PUZZLE)
+        // 5 is already in the first row
+        values[0] = 5
+
+        assertFalse(solver.solve(values, null))
+        assertNull(solver.rate(values))
+        assertFalse(solver.findNextStep(values, trace))
+    }
+
+    @Test
+    fun nextStepIsEasiestOne() {
+        assertTrue(solver.findNextStep(SolverTest.parse(MEDIUM), trace))
+        assertEquals(Difficulty.EASY, trace.getTechnique(0).difficulty)
+
+        assertFalse(solver.findNextStep(SolverTest.parse(SolverTest.SOLUTION), trace))
+    }
+
+    private fun assertRating(difficulty: Difficulty, puzzle: String) {
+        val values = SolverTest.parse(puzzle)
+
+        assertTrue(solver.solve(values, trace))
+        var hardest = Difficulty.EASY
+        for (step in 0 until trace.stepCount) {
+            val stepDifficulty = trace.getTechnique(step).difficulty
+            if (stepDifficulty > hardest) {
+                hardest = stepDifficulty
+            }
+        }
+        assertEquals(difficulty, hardest)
+        assertEquals(difficulty, solver.rate(values))
+    }
+
+    companion object {
+        // needs pointing
+        const val MEDIUM = "030004087948700500060800009010586720000000000087312050800003070003007865570200090"
+        // needs XY-Wing
+        const val HARD = "108090000200308096090000400406009030010205060080600201001000040360904007000060305"
+        // needs simple coloring
+        const val EXPERT = "005037001000050627600002530020070000001968200000010090013700008486090000700840100"
+        const val BEYOND_TECHNIQUES = "800000000003600000070090200050007000000045700000100030001000068008500010090000400"
+    }
+}
@@ -0,0 +1,139 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+package cz.romario.opensudoku.game
+
+import org.junit.Assert.*
+import org.junit.Test
+
+class MapStateBundleTest {
+
+    @Test
+    fun valuesRoundTrip() {
+        val bundle = MapStateBundle()
+        bundle.putBoolean("boolean", true)
+        bundle.putInt("int", -7)
+        bundle.putLong("long", Long.MAX_VALUE)
+        bundle.putString("string", "text")
+        bundle.putIntArray("ints", intArrayOf(1, 2, 3))
+        bundle.putStringArray("strings", arrayOf("a", "b"))
+        bundle.putByteArray("bytes", byteArrayOf(4, 5))
+
+        assertTrue(bundle.getBoolean("boolean"))
+        assertEquals(-7, bundle.getInt("int"))
+        assertEquals(Long.MAX_VALUE, bundle.getLong("long"))
+        assertEquals("text", bundle.getString("string"))
+        assertArrayEquals(intArrayOf(1, 2, 3), bundle.getIntArray("ints"))
+        assertArrayEquals(arrayOf("a", "b"), bundle.getStringArray("strings"))
+        assertArrayEquals(byteArrayOf(4, 5), bundle.getByteArray("bytes"))
+    }
+
+    @Test
+    fun missingValuesHaveDefaults() {
+        val bundle = MapStateBundle()
+
+        assertFalse(bundle.containsKey("int"))
+        assertFalse(bundle.getBoolean("boolean"))
+        assertEquals(0, bundle.getInt("int"))
+        assertEquals(0L, bundle.getLong("long"))
+        assertNull(bundle.getString("string"))
+        assertNull(bundle.getIntArray("ints"))
+        assertNull(bundle.getBundle("bundle"))
+    }
+
+    @Test
+    fun nullValuesAreKept() {
+        val bundle = MapStateBundle()
+        bundle.putString("string", null)
+        bundle.putIntArray("ints", null)
+
+        assertTrue(bundle.containsKey("string"))
+        assertNull(bundle.getString("string"))
+        assertTrue(bundle.containsKey("ints"))
+        assertNull(bundle.getIntArray("ints"))
+    }
+
+    @Test
+    fun arraysAreCopied() {
+        val bundle = MapStateBundle()
+        val values = intArrayOf(1, 2, 3)
+        bundle.putIntArray("ints", values)
+        values[0] = 9
+        bundle.getIntArray("ints")!![1] = 9
+
+        assertArrayEquals(intArrayOf(1, 2, 3), bundle.getIntArray("ints"))
+    }
+
+    @Test
+    fun nestedBundlesRoundTrip() {
+        val bundle = MapStateBundle()
+        bundle.putBundle("child").putInt("int", 5)
+
+        assertEquals(5, bundle.getBundle("child")!!.getInt("int"))
+        assertFalse(bundle.containsKey("int"))
+    }
+
+    @Test
+    fun gameStateRoundTrip() {
+        val game = SudokuGame()
+        val cells = CellCollection.deserialize(SolverTest.PUZZLE)
+        game.id = 42
+        game.note = "note"
+        game.cells = cells
+        game.solution = SolverTest.parse(SolverTest.SOLUTION)
+        game.setCellValue(cells.getCell(0), 3)
+        game.setCellNote(cells.getCell(3), CellNote.EMPTY.addNumber(4).addNumber(7))
+
+        val bundle = MapStateBundle()
+        game.saveState(bundle)
+        val restored = SudokuGame()
+        restored.restoreState(bundle)
+
+        assertEquals(42L, restored.id)
+        assertEquals("note", restored.note)
+        assertArrayEquals(game.solution, restored.solution)
+        val restoredCells = restored.cells!!
+        assertArrayEquals(cells.serializeBinary(), restoredCells.serializeBinary())
+        assertEquals(cells.zobristHash, restoredCells.zobristHash)
+
+        // commands are restored too, so moves made before saving can be undone
+        assertTrue(restored.hasSomethingToUndo())
+        restored.undo()
+        restored.undo()
+        assertArrayEquals(CellCollection.deserialize(SolverTest.PUZZLE).serializeBinary(), restoredCells.serializeBinary())
+        assertFalse(restored.hasSomethingToUndo())
+    }
+
+    @Test
+    fun gameStateWithTextCellsIsRestored() {
+        val game = SudokuGame()
+        val cells = CellCollection.deserialize(SolverTest.PUZZLE)
+        game.cells = cells
+        game.setCellValue(cells.getCell(0), 3)
+
+        // older versions saved cells in text form
+        val bundle = MapStateBundle()
+        game.saveState(bundle)
+        bundle.putString("cells", cells.serialize())
+        val restored = SudokuGame()
+        restored.restoreState(bundle)
+
+        assertArrayEquals(cells.serializeBinary(), restored.cells!!.serializeBinary())
+    }
+}
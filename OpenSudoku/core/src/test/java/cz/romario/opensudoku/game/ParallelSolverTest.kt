@@ -0,0 +1,113 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+package cz.romario.opensudoku.game
+
+import org.junit.Assert.*
+import org.junit.Test
+import java.util.*
+
+class ParallelSolverTest : SolverTest() {
+
+    override fun createSolver(geometry: BoardGeometry): Solver = ParallelSolver(geometry, THREAD_COUNT)
+
+    @Test
+    fun countsSameSolutionsAsBitboardSolver() {
+        val random = Random(1)
+        val geometry = BoardGeometry.forSize(16)
+        val parallel = ParallelSolver(geometry, THREAD_COUNT)
+        val bitboard = BitboardSolver(geometry)
+        val solution = bitboard.solve(IntArray(geometry.cellCount))!!
+        for (t in 0 until 40) {
+            val values = solution.copyOf()
+            // dense enough for single-threaded search to finish quickly
+            val keep = 0.4 + random.nextDouble() * 0.5
+            for (i in values.indices) {
+                if (random.nextDouble() > keep) {
+                    values[i] = 0
+                }
+            }
+            if (t % 4 == 0) {
+                values[random.nextInt(values.size)] = random.nextInt(geometry.size) + 1
+            }
+
+            for (limit in intArrayOf(1, 2, 5)) {
+                val count = bitboard.countSolutions(values, limit)
+                assertEquals(count, parallel.countSolutions(values, limit))
+                for (k in 0 until Math.min(count, CancellableSolver.MAX_KEPT_SOLUTIONS)) {
+                    assertSolved(geometry, values, parallel.getSolution(k))
+                }
+            }
+        }
+    }
+
+    @Test
+    fun worksWithSingleThread() {
+        val solver = ParallelSolver(BoardGeometry.STANDARD, 1)
+
+        assertArrayEquals(parse(SOLUTION), solver.solve(parse(PUZZLE)))
+        assertEquals(2, solver.countSolutions(parse(TWO_SOLUTIONS), 5))
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun rejectsZeroThreads() {
+        ParallelSolver(BoardGeometry.STANDARD, 0)
+    }
+
+    @Test
+    fun stopsSearchWhenTokenIsCancelledBeforeStart() {
+        val geometry = BoardGeometry.forSize(16)
+        val solver = ParallelSolver(geometry, THREAD_COUNT)
+        val token = CancelToken()
+        token.cancel()
+
+        assertEquals(0, solver.countSolutions(IntArray(geometry.cellCount), 1000, token))
+        // token belongs to the cancelled search only
+        assertEquals(3, solver.countSolutions(IntArray(geometry.cellCount), 3, CancelToken()))
+    }
+
+    @Test(timeout = 10000)
+    fun stopsSearchWhenTokenIsCancelledFromAnotherThread() {
+        val geometry = BoardGeometry.forSize(25)
+        val solver = ParallelSolver(geometry, THREAD_COUNT)
+        val token = CancelToken()
+        val canceller = Thread {
+            Thread.sleep(50)
+            token.cancel()
+        }
+        canceller.start()
+
+        val count = solver.countSolutions(IntArray(geometry.cellCount), Int.MAX_VALUE, token)
+        canceller.join()
+        assertTrue(token.isCancelled)
+        assertTrue(count < Int.MAX_VALUE)
+    }
+
+    @Test
+    fun isCreatedForLargeBoards() {
+        assertTrue(CancellableSolver.create(BoardGeometry.STANDARD) is BitboardSolver)
+        val solver = CancellableSolver.create(BoardGeometry.forSize(ParallelSolver.MIN_SIZE))
+        assertEquals(ParallelSolver.DEFAULT_THREAD_COUNT > 1, solver is ParallelSolver)
+    }
+
+    companion object {
+        // more threads than tests usually have cores, so the work is split even on small machines
+        private const val THREAD_COUNT = 4
+    }
+}
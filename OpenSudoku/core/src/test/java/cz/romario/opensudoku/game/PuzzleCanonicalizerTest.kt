@@ -0,0 +1,110 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+package cz.romario.opensudoku.game
+
+import org.junit.Assert.*
+import org.junit.Test
+import java.util.*
+
+class PuzzleCanonicalizerTest {
+
+    private val canonicalizer = PuzzleCanonicalizer()
+
+    @Test
+    fun equivalentPuzzlesHaveSameForm() {
+        val form = canonicalizer.canonicalize(CellCollection.deserialize(SolverTest.PUZZLE))
+        val random = Random(1)
+        for (n in 0 until 20) {
+            val transformed = transform(SolverTest.PUZZLE, random)
+
+            assertEquals(form, canonicalizer.canonicalize(CellCollection.deserialize(transformed)))
+        }
+    }
+
+    @Test
+    fun formIsEquivalentToPuzzle() {
+        val form = canonicalizer.canonicalize(CellCollection.deserialize(SolverTest.PUZZLE))
+
+        assertEquals(81, form.length)
+        assertEquals(SolverTest.PUZZLE.count { it != '0' }, form.count { it != '0' })
+        // canonical form is canonical form of itself
+        assertEquals(form, canonicalizer.canonicalize(CellCollection.deserialize(form)))
+    }
+
+    @Test
+    fun differentPuzzlesHaveDifferentForms() {
+        val other = SolverTest.PUZZLE.replaceFirst('5', '0')
+
+        assertNotEquals(canonicalizer.canonicalize(CellCollection.deserialize(SolverTest.PUZZLE)),
+                canonicalizer.canonicalize(CellCollection.deserialize(other)))
+    }
+
+    @Test
+    fun editableCellsAreIgnored() {
+        val cells = CellCollection.deserialize(SolverTest.PUZZLE)
+        val form = canonicalizer.canonicalize(cells)
+        cells.getCell(0).value = 3
+
+        assertEquals(form, canonicalizer.canonicalize(cells))
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun onlyStandardBoardsAreCanonicalized() {
+        canonicalizer.canonicalize(CellCollection.createEmpty(BoardGeometry.forSize(4)))
+    }
+
+    /**
+     * Applies random relabelling, row and column permutations (preserving bands and stacks)
+     * and possibly transposition to the puzzle.
+     */
+    private fun transform(puzzle: String, random: Random): String {
+        val labels = shuffled(1..9, random)
+        val rows = permutation(random)
+        val cols = permutation(random)
+        val transpose = random.nextBoolean()
+        val result = CharArray(81)
+        for (r in 0 until 9) {
+            for (c in 0 until 9) {
+                val source = if (transpose) cols[c] * 9 + rows[r] else rows[r] * 9 + cols[c]
+                val value = puzzle[source] - '0'
+                result[r * 9 + c] = if (value == 0) '0' else '0' + labels[value - 1]
+            }
+        }
+        return String(result)
+    }
+
+    private fun permutation(random: Random): IntArray {
+        val bands = shuffled(0..2, random)
+        val result = IntArray(9)
+        for (b in 0..2) {
+            val inBand = shuffled(0..2, random)
+            for (i in 0..2) {
+                result[b * 3 + i] = bands[b] * 3 + inBand[i]
+            }
+        }
+        return result
+    }
+
+    private fun shuffled(range: IntRange, random: Random): List<Int> {
+        val list = range.toMutableList()
+        Collections.shuffle(list, random)
+        return list
+    }
+}
@@ -0,0 +1,93 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+package cz.romario.opensudoku.game
+
+import org.junit.Assert.*
+import org.junit.Test
+import java.util.*
+
+class PuzzleGeneratorTest {
+
+    @Test(timeout = 60000)
+    fun generatedPuzzlesHaveUniqueSolutionAndRequestedDifficulty() {
+        val generator = PuzzleGenerator(BoardGeometry.STANDARD, PuzzleGenerator.Symmetry.ROTATIONAL,
+                Difficulty.EASY, Difficulty.MEDIUM)
+        val puzzles = generate(generator, 4)
+
+        val solver = BitboardSolver(BoardGeometry.STANDARD)
+        val logicalSolver = LogicalSolver()
+        for (puzzle in puzzles) {
+            assertEquals(1, solver.countSolutions(puzzle.values, 2))
+            assertArrayEquals(puzzle.solution, solver.solve(puzzle.values))
+            assertTrue(puzzle.difficulty <= Difficulty.MEDIUM)
+            assertEquals(puzzle.difficulty, logicalSolver.rate(puzzle.values))
+            for (i in 0 until 81) {
+                // givens are symmetric when the board is rotated by 180 degrees
+                assertEquals(puzzle.values[i] == 0, puzzle.values[80 - i] == 0)
+            }
+        }
+    }
+
+    @Test(timeout = 60000)
+    fun mirroredPuzzlesOfSmallBoardAreGenerated() {
+        val geometry = BoardGeometry.forSize(6)
+        val generator = PuzzleGenerator(geometry, PuzzleGenerator.Symmetry.MIRROR,
+                Difficulty.EASY, Difficulty.EXPERT)
+        val puzzles = generate(generator, 3)
+
+        val solver = BitboardSolver(geometry)
+        for (puzzle in puzzles) {
+            assertEquals(geometry.cellCount, puzzle.values.size)
+            assertEquals(1, solver.countSolutions(puzzle.values, 2))
+            for (r in 0 until 6) {
+                for (c in 0 until 6) {
+                    assertEquals(puzzle.values[r * 6 + c] == 0, puzzle.values[r * 6 + 5 - c] == 0)
+                }
+            }
+        }
+    }
+
+    @Test
+    fun cancelledGeneratorGeneratesNothing() {
+        val generator = PuzzleGenerator(Difficulty.EASY)
+        generator.cancel()
+
+        assertEquals(0, generate(generator, 2).size)
+    }
+
+    private class Puzzle(val values: IntArray, val solution: IntArray, val difficulty: Difficulty)
+
+    private fun generate(generator: PuzzleGenerator, count: Int): List<Puzzle> {
+        val puzzles = ArrayList<Puzzle>()
+        var progress = 0
+        val generatedCount = generator.generate(count, object : PuzzleGenerator.Listener {
+            override fun onPuzzleGenerated(values: IntArray, solution: IntArray, difficulty: Difficulty) {
+                puzzles.add(Puzzle(values, solution, difficulty))
+            }
+
+            override fun onProgress(generatedCount: Int, count: Int) {
+                progress = generatedCount
+            }
+        })
+        assertEquals(puzzles.size, generatedCount)
+        assertEquals(puzzles.size, progress)
+        return puzzles
+    }
+}
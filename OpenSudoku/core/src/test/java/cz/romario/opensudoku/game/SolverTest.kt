@@ -0,0 +1,176 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+package cz.romario.opensudoku.game
+
+import org.junit.Assert.*
+import org.junit.Test
+
+/**
+ * Checks common to all [Solver] implementations, subclasses only create the solver.
+ */
+abstract class SolverTest {
+
+    protected abstract fun createSolver(geometry: BoardGeometry): Solver
+
+    @Test
+    fun solvesPuzzleWithUniqueSolution() {
+        val solver = createSolver(BoardGeometry.STANDARD)
+        val values = parse(PUZZLE)
+
+        assertEquals(1, solver.countSolutions(values, 2))
+        assertArrayEquals(parse(SOLUTION), solver.solve(values))
+    }
+
+    @Test
+    fun doesNotChangeGivenValues() {
+        val values = parse(PUZZLE)
+        createSolver(BoardGeometry.STANDARD).solve(values)
+
+        assertArrayEquals(parse(PUZZLE), values)
+    }
+
+    @Test
+    fun countsTwoSolutions() {
+        val solver = createSolver(BoardGeometry.STANDARD)
+        val values = parse(TWO_SOLUTIONS)
+
+        assertEquals(2, solver.countSolutions(values, 2))
+        assertEquals(2, solver.countSolutions(values, 10))
+        assertEquals(1, solver.countSolutions(values, 1))
+        assertSolved(BoardGeometry.STANDARD, values, solver.solve(values))
+    }
+
+    @Test
+    fun stopsCountingAtLimit() {
+        val solver = createSolver(BoardGeometry.STANDARD)
+        val values = IntArray(BoardGeometry.STANDARD.cellCount)
+
+        assertEquals(0, solver.countSolutions(values, 0))
+        assertEquals(2, solver.countSolutions(values, 2))
+        assertEquals(50, solver.countSolutions(values, 50))
+    }
+
+    @Test
+    fun findsNoSolutionForCollidingGivens() {
+        val solver = createSolver(BoardGeometry.STANDARD)
+        val values = parse(PUZZLE)
+        // 5 is already given in the first row
+        values[0] = 5
+
+        assertEquals(0, solver.countSolutions(values, 2))
+        assertNull(solver.solve(values))
+    }
+
+    @Test
+    fun findsNoSolutionForCellWithoutCandidates() {
+        val solver = createSolver(BoardGeometry.STANDARD)
+        // first row misses only 9, which is already in the last column
+        val values = IntArray(BoardGeometry.STANDARD.cellCount)
+        for (i in 0 until 8) {
+            values[i] = i + 1
+        }
+        values[9 + 8] = 9
+
+        assertEquals(0, solver.countSolutions(values, 2))
+        assertNull(solver.solve(values))
+    }
+
+    @Test
+    fun solvesEmptyBoardOfEachSize() {
+        for (size in intArrayOf(4, 6, 9, 12, 16, 25)) {
+            val geometry = BoardGeometry.forSize(size)
+            val values = IntArray(geometry.cellCount)
+
+            assertSolved(geometry, values, createSolver(geometry).solve(values))
+        }
+    }
+
+    @Test
+    fun solvesBoardWithCellCollectionValues() {
+        val cells = CellCollection.deserialize(PUZZLE)
+
+        assertArrayEquals(parse(SOLUTION), createSolver(cells.geometry).solve(cells))
+        assertEquals(1, createSolver(cells.geometry).countSolutions(cells.snapshot(), 2))
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun rejectsBoardOfOtherSize() {
+        createSolver(BoardGeometry.STANDARD).solve(CellCollection.createEmpty(BoardGeometry.forSize(16)))
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun rejectsValueOutOfRange() {
+        val values = parse(PUZZLE)
+        values[0] = 10
+        createSolver(BoardGeometry.STANDARD).countSolutions(values, 2)
+    }
+
+    @Test
+    fun isReusableAfterFailedSearch() {
+        val solver = createSolver(BoardGeometry.STANDARD)
+        val broken = parse(PUZZLE)
+        broken[0] = 5
+        solver.solve(broken)
+
+        assertArrayEquals(parse(SOLUTION), solver.solve(parse(PUZZLE)))
+    }
+
+    companion object {
+        const val PUZZLE = "052006000160900004049803620400000800083201590001000002097305240200009056000100970"
+        const val SOLUTION = "352476189168952734749813625425697813683241597971538462897365241214789356536124978"
+        // SOLUTION with rectangle of cells r1c4, r1c9, r2c4, r2c9 cleared, its 4 and 9 can be swapped
+        const val TWO_SOLUTIONS = "352076180168052730749813625425697813683241597971538462897365241214789356536124978"
+
+        fun parse(data: String) = IntArray(data.length) { data[it] - '0' }
+
+        /**
+         * Asserts that solution is filled board which keeps given values and has each value
+         * once in each row, column and sector.
+         */
+        fun assertSolved(geometry: BoardGeometry, values: IntArray, solution: IntArray?) {
+            assertNotNull(solution)
+            solution!!
+            val size = geometry.size
+            assertEquals(geometry.cellCount, solution.size)
+            for (i in values.indices) {
+                if (values[i] != 0) {
+                    assertEquals(values[i], solution[i])
+                }
+            }
+            val rows = IntArray(size)
+            val columns = IntArray(size)
+            val sectors = IntArray(size)
+            for (i in solution.indices) {
+                val value = solution[i]
+                assertTrue(value in 1..size)
+                val bit = 1 shl (value - 1)
+                val row = i / size
+                val column = i % size
+                val sector = geometry.getSectorIndex(row, column)
+                assertEquals(0, rows[row] and bit)
+                assertEquals(0, columns[column] and bit)
+                assertEquals(0, sectors[sector] and bit)
+                rows[row] = rows[row] or bit
+                columns[column] = columns[column] or bit
+                sectors[sector] = sectors[sector] or bit
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+package cz.romario.opensudoku.game
+
+import org.junit.Assert.*
+import org.junit.Before
+import org.junit.Test
+
+class SudokuGameTest {
+
+    private lateinit var game: SudokuGame
+    private lateinit var cells: CellCollection
+
+    @Before
+    fun setUp() {
+        game = SudokuGame()
+        cells = CellCollection.deserialize(SolverTest.PUZZLE)
+        game.cells = cells
+        game.solution = SolverTest.parse(SolverTest.SOLUTION)
+    }
+
+    @Test
+    fun valueDifferentFromSolutionIsWrong() {
+        val index = findEmptyCell()
+        val correct = SolverTest.SOLUTION[index] - '0'
+        // value which breaks no rule, but is not in the solution
+        val wrong = Integer.numberOfTrailingZeros(cells.getCandidates(index) and (1 shl (correct - 1)).inv()) + 1
+
+        game.setCellValue(cells.getCell(index), wrong)
+        assertTrue(cells.isValid(index))
+        assertTrue(game.isWrong(index))
+
+        game.setCellValue(cells.getCell(index), correct)
+        assertFalse(game.isWrong(index))
+    }
+
+    @Test
+    fun emptyCellsAndGivensAreNotWrong() {
+        for (i in 0 until cells.cellCount) {
+            assertFalse(game.isWrong(i))
+        }
+    }
+
+    @Test
+    fun undoneMistakeIsNotWrong() {
+        val index = findEmptyCell()
+        val wrong = (SolverTest.SOLUTION[index] - '0') % 9 + 1
+
+        game.setCellValue(cells.getCell(index), wrong)
+        assertTrue(game.isWrong(index))
+        game.undo()
+        assertFalse(game.isWrong(index))
+    }
+
+    @Test
+    fun undoRestoresZobristHash() {
+        val original = cells.zobristHash
+        val index = findEmptyCell()
+
+        game.setUndoCheckpoint()
+        game.setCellValue(cells.getCell(index), SolverTest.SOLUTION[index] - '0')
+        game.setCellNote(cells.getCell(index + 1), CellNote.valueOf(0b11))
+        game.fillInNotes()
+        assertNotEquals(original, cells.zobristHash)
+
+        game.undo()
+        assertEquals(CellCollection.deserialize(cells.serializeBinary()).zobristHash, cells.zobristHash)
+        game.undoToCheckpoint()
+        assertEquals(original, cells.zobristHash)
+    }
+
+    @Test
+    fun nothingIsWrongWithoutSolution() {
+        val index = findEmptyCell()
+        game.solution = null
+
+        game.setCellValue(cells.getCell(index), (SolverTest.SOLUTION[index] - '0') % 9 + 1)
+        assertFalse(game.isWrong(index))
+    }
+
+    private fun findEmptyCell(): Int {
+        for (i in 0 until cells.cellCount) {
+            if (cells.getValue(i) == 0 && Integer.bitCount(cells.getCandidates(i)) > 1) {
+                return i
+            }
+        }
+        throw IllegalStateException("Puzzle has no cell with more candidates.")
+    }
+}
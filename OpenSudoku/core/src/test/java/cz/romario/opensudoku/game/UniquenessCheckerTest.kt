@@ -0,0 +1,105 @@
+/* 
+ * Copyright (C) 2009 Roman Masek
+ * 
+ * This file is part of OpenSudoku.
+ * 
+ * OpenSudoku is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * OpenSudoku is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with OpenSudoku.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+package cz.romario.opensudoku.game
+
+import org.junit.After
+import org.junit.Assert.*
+import org.junit.Test
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.TimeUnit
+
+class UniquenessCheckerTest {
+
+    private val results = LinkedBlockingQueue<Int>()
+    private val checker = UniquenessChecker(BoardGeometry.STANDARD, object : UniquenessChecker.Listener {
+        override fun onSolutionCountChecked(solutionCount: Int) {
+            results.add(solutionCount)
+        }
+    })
+
+    @After
+    fun shutdown() {
+        checker.shutdown()
+    }
+
+    @Test(timeout = 20000)
+    fun solutionsAreCounted() {
+        assertEquals(1, check(SolverTest.PUZZLE))
+        assertEquals(PuzzleSolution.MULTIPLE, check(SolverTest.TWO_SOLUTIONS))
+        assertEquals(0, check(SolverTest.PUZZLE.replaceFirst('0', '5')))
+    }
+
+    @Test(timeout = 20000)
+    fun givensAddedToUniquePuzzleAreAnsweredFromSolution() {
+        assertEquals(1, check(SolverTest.PUZZLE))
+
+        // given which agrees with the solution keeps it unique
+        val puzzle = SolverTest.PUZZLE.toCharArray()
+        puzzle[0] = SolverTest.SOLUTION[0]
+        assertEquals(1, check(String(puzzle)))
+
+        // given which does not agree leaves no solution, although it breaks no rule
+        val candidates = CellCollection.deserialize(String(puzzle)).getCandidates(3) and
+                (1 shl (SolverTest.SOLUTION[3] - '1')).inv()
+        puzzle[3] = '1' + Integer.numberOfTrailingZeros(candidates)
+        assertEquals(0, check(String(puzzle)))
+    }
+
+    @Test(timeout = 20000)
+    fun removedGivenKeepsMultipleSolutions() {
+        assertEquals(PuzzleSolution.MULTIPLE, check(SolverTest.TWO_SOLUTIONS))
+
+        assertEquals(PuzzleSolution.MULTIPLE, check(SolverTest.TWO_SOLUTIONS.replaceFirst('3', '0')))
+    }
+
+    @Test(timeout = 20000)
+    fun givensAddedToBoardWithoutSolutionAreAnsweredAtOnce() {
+        val broken = SolverTest.PUZZLE.replaceFirst('0', '5')
+        assertEquals(0, check(broken))
+
+        assertEquals(0, check(broken.replaceFirst('0', '1')))
+    }
+
+    @Test(timeout = 20000)
+    fun removingGivenOfUniquePuzzleIsSearchedAgain() {
+        assertEquals(1, check(SolverTest.PUZZLE))
+
+        assertEquals(PuzzleSolution.MULTIPLE, check(EMPTY))
+        assertEquals(1, check(SolverTest.PUZZLE))
+    }
+
+    @Test(timeout = 20000)
+    fun onlyLastOfQuickEditsIsReported() {
+        checker.update(CellCollection.deserialize(SolverTest.TWO_SOLUTIONS).snapshot())
+        checker.update(CellCollection.deserialize(SolverTest.PUZZLE).snapshot())
+
+        assertEquals(1, results.poll(5, TimeUnit.SECONDS))
+        assertNull(results.poll(500, TimeUnit.MILLISECONDS))
+    }
+
+    private fun check(puzzle: String): Int {
+        checker.update(CellCollection.deserialize(puzzle).snapshot())
+        return results.poll(5, TimeUnit.SECONDS)!!
+    }
+
+    companion object {
+        private val EMPTY = String(CharArray(81) { '0' })
+    }
+}